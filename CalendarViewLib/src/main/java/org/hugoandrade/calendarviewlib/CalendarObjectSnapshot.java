@@ -0,0 +1,35 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calendar Objects already indexed (into a CalendarObjectStore and a RangeIndex)
+ * on the thread that built them, ready to be adopted by the CalendarView on the
+ * main thread. Snapshots are immutable once built.
+ */
+class CalendarObjectSnapshot {
+
+    final CalendarObjectStore store = new CalendarObjectStore();
+    final RangeIndex rangeIndex = new RangeIndex();
+
+    /**
+     * Index the given objects, keeping them or only their values. Can be called on any thread.
+     */
+    CalendarObjectSnapshot(List<CalendarObject> calendarObjectList, boolean keepObjects) {
+        store.setKeepObjects(keepObjects);
+        rangeIndex.setKeepObjects(keepObjects);
+
+        List<CalendarObject> dayObjectList = new ArrayList<>(calendarObjectList.size());
+        for (CalendarObject calendarObject : calendarObjectList) {
+            if (calendarObject.isMultiDay())
+                rangeIndex.add(calendarObject);
+            else
+                dayObjectList.add(calendarObject);
+        }
+        store.setAll(dayObjectList);
+        rangeIndex.prepare();
+    }
+}
@@ -0,0 +1,808 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.DayIndex;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.hugoandrade.calendarviewlib.helpers.SortedIntMap;
+import org.hugoandrade.calendarviewlib.helpers.SortedIntSet;
+import org.hugoandrade.calendarviewlib.helpers.YMDCalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store of Calendar Objects, bucketed by month. Each month bucket holds its
+ * objects in parallel primitive arrays (epoch day, minute of the day and
+ * colors, plus the interned IDs), sorted by datetime, so sorting, searching
+ * and binding never read a Calendar. Each bucket also keeps the index of the
+ * first object of every day, so the objects of a day are a range of the
+ * bucket found without searching. The objects returned are created from those
+ * values, unless the store keeps the objects it is given (see setKeepObjects).
+ * Free of Android classes, so it can run on a plain JVM.
+ */
+class CalendarObjectStore {
+
+    /**
+     * Month buckets by yyyymm code
+     */
+    private SortedIntMap<Month> mObjectsByMonthMap = new SortedIntMap<>();
+
+    /**
+     * Epoch day of the Calendar Objects by ID, ie. the day range of the month
+     * bucket where each one is (kept up to date by all changes)
+     */
+    private Map<String, Integer> mEpochDayByIDMap = new HashMap<>();
+
+    private int mSize;
+
+    /**
+     * Whether the objects given are kept in an extra column and returned, instead of
+     * objects created from the values of the columns
+     */
+    private boolean mKeepObjects;
+
+    /**
+     * Insert a single object into its month bucket, after any object with
+     * the same datetime (insertion order is kept for ties).
+     */
+    void add(CalendarObject calendarObject) {
+        int epochDay = calendarObject.getEpochDay();
+        int minuteOfDay = calendarObject.getMinuteOfDay();
+
+        Month month = getOrCreateMonth(epochDay);
+        month.add(month.upperBound(epochDay, minuteOfDay), calendarObject, false);
+
+        putID(calendarObject.getID(), epochDay);
+        mSize++;
+    }
+
+    /**
+     * Replace the content of the store. The list is sorted once and then
+     * appended to the month buckets in a single pass.
+     */
+    void setAll(List<CalendarObject> calendarObjectList) {
+        clear();
+
+        long[] sortedKeys = sortedKeys(calendarObjectList);
+
+        Month currentMonth = null;
+        for (long key : sortedKeys) {
+            CalendarObject calendarObject = calendarObjectList.get((int) key);
+            int epochDay = calendarObject.getEpochDay();
+            if (currentMonth == null || !currentMonth.contains(epochDay))
+                currentMonth = getOrCreateMonth(epochDay);
+
+            append(currentMonth, calendarObject);
+        }
+        for (int m = 0 ; m < mObjectsByMonthMap.size() ; m++)
+            mObjectsByMonthMap.valueAt(m).rebuildDayIndex();
+        mSize = sortedKeys.length;
+    }
+
+    /**
+     * Insert several objects. They are sorted once and merged into each month
+     * bucket they belong to in a single pass (ties keep the objects already in
+     * the bucket first, then the list order).
+     */
+    void addAll(List<CalendarObject> calendarObjectList) {
+        long[] sortedKeys = sortedKeys(calendarObjectList);
+
+        int from = 0;
+        while (from < sortedKeys.length) {
+            Month month = getOrCreateMonth(calendarObjectList.get((int) sortedKeys[from]).getEpochDay());
+            int to = from + 1;
+            while (to < sortedKeys.length
+                    && month.contains(calendarObjectList.get((int) sortedKeys[to]).getEpochDay()))
+                to++;
+
+            month.merge(calendarObjectList, sortedKeys, from, to, false);
+            for (int k = from ; k < to ; k++) {
+                CalendarObject calendarObject = calendarObjectList.get((int) sortedKeys[k]);
+                putID(calendarObject.getID(), calendarObject.getEpochDay());
+            }
+            from = to;
+        }
+        mSize += sortedKeys.length;
+    }
+
+    /**
+     * Remove the objects with the given IDs, found through the ID index (so
+     * wherever they are). Each month bucket is compacted once.
+     *
+     * @return the objects removed, as they were in the store
+     */
+    List<CalendarObject> removeAll(Collection<String> ids) {
+        // Epoch day of the objects to remove by ID, grouped by month
+        SortedIntMap<Map<String, Integer>> epochDayByIDByMonthMap = new SortedIntMap<>();
+        for (String id : ids) {
+            Integer epochDay = id == null ? null : mEpochDayByIDMap.get(id);
+            if (epochDay == null)
+                continue;
+            int monthDateCode = getMonthDateCode(epochDay);
+            Map<String, Integer> epochDayByIDMap = epochDayByIDByMonthMap.get(monthDateCode);
+            if (epochDayByIDMap == null) {
+                epochDayByIDMap = new HashMap<>();
+                epochDayByIDByMonthMap.put(monthDateCode, epochDayByIDMap);
+            }
+            epochDayByIDMap.put(id, epochDay);
+        }
+
+        List<CalendarObject> removed = new ArrayList<>();
+        for (int m = 0 ; m < epochDayByIDByMonthMap.size() ; m++) {
+            Month month = mObjectsByMonthMap.get(epochDayByIDByMonthMap.keyAt(m));
+            Map<String, Integer> epochDayByIDMap = epochDayByIDByMonthMap.valueAt(m);
+
+            // Keep the objects not removed, in order
+            int from = removed.size();
+            int size = 0;
+            for (int i = 0 ; i < month.size ; i++) {
+                Integer epochDay = month.ids[i] == null ? null : epochDayByIDMap.get(month.ids[i]);
+                if (epochDay != null && epochDay == month.epochDays[i]) {
+                    removed.add(month.get(i));
+                    epochDayByIDMap.remove(month.ids[i]);
+                }
+                else {
+                    month.move(i, size++);
+                }
+            }
+            month.truncate(size);
+
+            for (int i = from ; i < removed.size() ; i++)
+                removeID(month, removed.get(i).getID(), removed.get(i).getEpochDay());
+        }
+        mSize -= removed.size();
+        return removed;
+    }
+
+    /**
+     * Take over the content of another store (eg. built on another thread),
+     * which must not be used afterwards.
+     */
+    void set(CalendarObjectStore calendarObjectStore) {
+        mObjectsByMonthMap = calendarObjectStore.mObjectsByMonthMap;
+        mEpochDayByIDMap = calendarObjectStore.mEpochDayByIDMap;
+        mSize = calendarObjectStore.mSize;
+        mKeepObjects = calendarObjectStore.mKeepObjects;
+    }
+
+    /**
+     * Replace the objects loaded for a month (from a MonthDataSource, or expanded
+     * from recurrences), keeping the objects added otherwise. Objects of the list
+     * outside that month are ignored.
+     *
+     * @return the number of objects loaded into the month
+     */
+    int setLoadedMonth(int monthDateCode, List<CalendarObject> calendarObjectList) {
+        removeLoadedMonth(monthDateCode);
+
+        // Keep the keys of the objects of the month, in order
+        long[] sortedKeys = sortedKeys(calendarObjectList);
+        int to = 0;
+        for (long key : sortedKeys)
+            if (getMonthDateCode(calendarObjectList.get((int) key).getEpochDay()) == monthDateCode)
+                sortedKeys[to++] = key;
+        if (to == 0)
+            return 0;
+
+        Month month = getOrCreateMonth(calendarObjectList.get((int) sortedKeys[0]).getEpochDay());
+        month.merge(calendarObjectList, sortedKeys, 0, to, true);
+        for (int k = 0 ; k < to ; k++) {
+            CalendarObject calendarObject = calendarObjectList.get((int) sortedKeys[k]);
+            putID(calendarObject.getID(), calendarObject.getEpochDay());
+        }
+        mSize += to;
+        return to;
+    }
+
+    /**
+     * Remove the objects loaded for a month (see setLoadedMonth), and only those
+     */
+    void removeLoadedMonth(int monthDateCode) {
+        Month month = mObjectsByMonthMap.get(monthDateCode);
+        if (month == null)
+            return;
+
+        // Keep the objects not loaded, in order
+        String[] removedIDs = new String[month.size];
+        int[] removedEpochDays = new int[month.size];
+        int removed = 0;
+        int size = 0;
+        for (int i = 0 ; i < month.size ; i++) {
+            if (month.loaded[i]) {
+                removedIDs[removed] = month.ids[i];
+                removedEpochDays[removed] = month.epochDays[i];
+                removed++;
+            }
+            else {
+                month.move(i, size++);
+            }
+        }
+        if (removed == 0)
+            return;
+
+        month.truncate(size);
+        for (int r = 0 ; r < removed ; r++)
+            removeID(month, removedIDs[r], removedEpochDays[r]);
+        mSize -= removed;
+        if (size == 0)
+            mObjectsByMonthMap.remove(monthDateCode);
+    }
+
+    /**
+     * Remove the object with the given ID, found through the ID index (so the
+     * datetime it was added with is not needed)
+     *
+     * @return the object removed, as it was in the store, or null if not found
+     */
+    CalendarObject remove(String id) {
+        Integer epochDay = id == null ? null : mEpochDayByIDMap.get(id);
+        if (epochDay == null)
+            return null;
+
+        Month month = getMonth(getMonthDateCode(epochDay));
+        int index = month.indexOf(id, epochDay);
+        if (index == -1)
+            return null;
+
+        CalendarObject calendarObject = month.get(index);
+        removeAt(month, index);
+        return calendarObject;
+    }
+
+    /**
+     * Compare the content of the store with a new list, matching objects by ID.
+     * Objects without ID can not be matched, so they are always removed and
+     * re-added.
+     */
+    Diff diff(List<CalendarObject> calendarObjectList) {
+        Diff diff = new Diff();
+
+        Map<String, CalendarObject> currentObjects = new HashMap<>(mEpochDayByIDMap.size() * 2);
+        for (int m = 0 ; m < mObjectsByMonthMap.size() ; m++) {
+            Month month = mObjectsByMonthMap.valueAt(m);
+            for (int i = 0 ; i < month.size ; i++) {
+                CalendarObject object = month.get(i);
+                if (object.getID() == null || currentObjects.containsKey(object.getID()))
+                    diff.removed.add(object);
+                else
+                    currentObjects.put(object.getID(), object);
+            }
+        }
+
+        for (CalendarObject object : calendarObjectList) {
+            CalendarObject currentObject = object.getID() == null ? null : currentObjects.remove(object.getID());
+            if (currentObject == null) {
+                diff.added.add(object);
+            }
+            else if (!hasSameContent(currentObject, object)) {
+                diff.changedFrom.add(currentObject);
+                diff.changed.add(object);
+            }
+            else if (mKeepObjects && currentObject != object) {
+                diff.replaced.add(object);
+            }
+        }
+        diff.removed.addAll(currentObjects.values());
+
+        return diff;
+    }
+
+    /**
+     * Apply a diff computed by {@link #diff(List)}. Small diffs are applied
+     * object by object; large ones fall back to a single sort-and-append
+     * pass over the new list.
+     */
+    void apply(Diff diff, List<CalendarObject> calendarObjectList) {
+        if (diff.size() > mSize / 2) {
+            setAll(calendarObjectList);
+            return;
+        }
+
+        for (CalendarObject object : diff.removed)
+            removeSame(object);
+        for (CalendarObject object : diff.changedFrom)
+            removeSame(object);
+        for (CalendarObject object : diff.changed)
+            add(object);
+        for (CalendarObject object : diff.added)
+            add(object);
+        for (CalendarObject object : diff.replaced)
+            replace(object);
+    }
+
+    /**
+     * @return the epoch days whose objects (datetimes or colors) differ between
+     * this store and the given one, compared day by day
+     */
+    SortedIntSet getDirtyDays(CalendarObjectStore calendarObjectStore) {
+        SortedIntSet dirtyDays = new SortedIntSet();
+        putDirtyDays(dirtyDays, mObjectsByMonthMap, calendarObjectStore);
+        putDirtyDays(dirtyDays, calendarObjectStore.mObjectsByMonthMap, this);
+        return dirtyDays;
+    }
+
+    /**
+     * Put the days of the given months that differ from the same months of the given store
+     */
+    private static void putDirtyDays(SortedIntSet dirtyDays,
+                                     SortedIntMap<Month> monthMap,
+                                     CalendarObjectStore calendarObjectStore) {
+        for (int m = 0 ; m < monthMap.size() ; m++) {
+            Month month = monthMap.valueAt(m);
+            Month otherMonth = calendarObjectStore.getMonth(monthMap.keyAt(m));
+            for (int d = 1 ; d <= 31 ; d++)
+                if (!month.hasSameDay(otherMonth, d))
+                    dirtyDays.add(month.firstDay + d - 1);
+        }
+    }
+
+    /**
+     * Keep the objects given from now on, and return those (the objects already in
+     * the store are returned as created from their values)
+     */
+    void setKeepObjects(boolean keepObjects) {
+        mKeepObjects = keepObjects;
+        for (int m = 0 ; m < mObjectsByMonthMap.size() ; m++)
+            mObjectsByMonthMap.valueAt(m).setKeepObjects(keepObjects);
+    }
+
+    void clear() {
+        mObjectsByMonthMap.clear();
+        mEpochDayByIDMap.clear();
+        mSize = 0;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    CalendarObject get(String id) {
+        Integer epochDay = id == null ? null : mEpochDayByIDMap.get(id);
+        if (epochDay == null)
+            return null;
+
+        Month month = getMonth(getMonthDateCode(epochDay));
+        int index = month.indexOf(id, epochDay);
+        return index == -1 ? null : month.get(index);
+    }
+
+    /**
+     * @return the month with the given yyyymm code (empty if there are no objects).
+     * The returned month must not be modified.
+     */
+    Month getMonth(int monthDateCode) {
+        Month month = mObjectsByMonthMap.get(monthDateCode);
+        return month == null ? Month.EMPTY : month;
+    }
+
+    List<CalendarObject> getDay(YMDCalendar day) {
+        Month month = getMonth(YMDCalendar.getDateCode(day, 1));
+        int from = month.indexOfDay(day.day);
+        int to = month.indexOfDay(day.day + 1);
+
+        List<CalendarObject> calendarObjectList = new ArrayList<>(to - from);
+        for (int i = from ; i < to ; i++)
+            calendarObjectList.add(month.get(i));
+        return calendarObjectList;
+    }
+
+    /**
+     * Remove the object with the same ID and content as the given one
+     */
+    private void removeSame(CalendarObject calendarObject) {
+        Month month = mObjectsByMonthMap.get(getMonthDateCode(calendarObject.getEpochDay()));
+        if (month == null)
+            return;
+
+        int index = month.indexOfSame(calendarObject);
+        if (index != -1)
+            removeAt(month, index);
+    }
+
+    /**
+     * Keep the given object instead of the stored one with the same ID (and content)
+     */
+    private void replace(CalendarObject calendarObject) {
+        Month month = getMonth(getMonthDateCode(calendarObject.getEpochDay()));
+        int index = month.indexOf(calendarObject.getID(), calendarObject.getEpochDay());
+        if (index != -1 && month.objects != null)
+            month.objects[index] = calendarObject;
+    }
+
+    private void removeAt(Month month, int index) {
+        String id = month.ids[index];
+        int epochDay = month.epochDays[index];
+        month.remove(index);
+        removeID(month, id, epochDay);
+        mSize--;
+    }
+
+    private Month getOrCreateMonth(int epochDay) {
+        int monthDateCode = getMonthDateCode(epochDay);
+        Month month = mObjectsByMonthMap.get(monthDateCode);
+        if (month == null) {
+            month = new Month(EpochDay.of(EpochDay.year(epochDay), EpochDay.month(epochDay), 1));
+            month.setKeepObjects(mKeepObjects);
+            mObjectsByMonthMap.put(monthDateCode, month);
+        }
+        return month;
+    }
+
+    private void append(Month month, CalendarObject calendarObject) {
+        month.add(month.size, calendarObject, false);
+        putID(calendarObject.getID(), calendarObject.getEpochDay());
+    }
+
+    private void putID(String id, int epochDay) {
+        if (id != null)
+            mEpochDayByIDMap.put(id, epochDay);
+    }
+
+    /**
+     * Remove the ID from the ID map if no other object of that day has it
+     */
+    private void removeID(Month month, String id, int epochDay) {
+        if (id == null)
+            return;
+
+        Integer indexedEpochDay = mEpochDayByIDMap.get(id);
+        if (indexedEpochDay == null || indexedEpochDay != epochDay)
+            return;
+
+        if (month.indexOf(id, epochDay) == -1)
+            mEpochDayByIDMap.remove(id);
+    }
+
+    /**
+     * @return (datetime, list index) pairs packed into longs and sorted. Sorting
+     * primitives keeps the order of objects with the same datetime.
+     */
+    private static long[] sortedKeys(List<CalendarObject> calendarObjectList) {
+        long[] keys = new long[calendarObjectList.size()];
+        for (int i = 0 ; i < keys.length ; i++) {
+            CalendarObject calendarObject = calendarObjectList.get(i);
+            keys[i] = DayIndex.key(calendarObject.getEpochDay(), calendarObject.getMinuteOfDay(), i);
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static boolean hasSameContent(CalendarObject o1, CalendarObject o2) {
+        return o1.getEpochDay() == o2.getEpochDay()
+                && o1.getMinuteOfDay() == o2.getMinuteOfDay()
+                && o1.getPrimaryColor() == o2.getPrimaryColor()
+                && o1.getSecondaryColor() == o2.getSecondaryColor();
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    static int getMonthDateCode(int epochDay) {
+        return EpochDay.year(epochDay) * 100 + EpochDay.month(epochDay);
+    }
+
+    /**
+     * Objects of a month, sorted by datetime, in parallel arrays, with the index
+     * of the first object of each day. If the store keeps the objects it is given,
+     * the 'objects' column holds them (it is null otherwise).
+     */
+    static class Month {
+
+        static final Month EMPTY = new Month(0);
+
+        private static final int MIN_CAPACITY = 4;
+
+        /**
+         * Epoch day of the first day of the month
+         */
+        final int firstDay;
+
+        int size;
+        int[] epochDays = new int[0];
+        int[] minutesOfDay = new int[0];
+        int[] primaryColors = new int[0];
+        int[] secondaryColors = new int[0];
+        String[] ids = new String[0];
+        /**
+         * Whether each object was loaded for the month (see setLoadedMonth)
+         */
+        boolean[] loaded = new boolean[0];
+        CalendarObject[] objects;
+
+        /**
+         * dayIndex[d] is the index of the first object on or after day 'd' (1 to 31),
+         * so the objects of day 'd' are in [dayIndex[d], dayIndex[d + 1]).
+         */
+        private final int[] dayIndex = new int[DayIndex.LENGTH];
+
+        private Month(int firstDay) {
+            this.firstDay = firstDay;
+        }
+
+        /**
+         * @return the index of the first object on or after the given day of the month
+         */
+        int indexOfDay(int dayOfMonth) {
+            return dayIndex[dayOfMonth];
+        }
+
+        /**
+         * @return whether the objects of the given day of the month have the same
+         * datetimes and colors (in the same order) in both months
+         */
+        private boolean hasSameDay(Month month, int dayOfMonth) {
+            int from = indexOfDay(dayOfMonth);
+            int to = indexOfDay(dayOfMonth + 1);
+            int otherFrom = month.indexOfDay(dayOfMonth);
+            if (to - from != month.indexOfDay(dayOfMonth + 1) - otherFrom)
+                return false;
+
+            for (int i = from, j = otherFrom ; i < to ; i++, j++) {
+                if (minutesOfDay[i] != month.minutesOfDay[j]
+                        || primaryColors[i] != month.primaryColors[j]
+                        || secondaryColors[i] != month.secondaryColors[j])
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the index of the object with the given ID on the given day, or -1
+         */
+        int indexOf(String id, int epochDay) {
+            int dayOfMonth = epochDay - firstDay + 1;
+            for (int i = indexOfDay(dayOfMonth) ; i < indexOfDay(dayOfMonth + 1) ; i++)
+                if (id.equals(ids[i]))
+                    return i;
+            return -1;
+        }
+
+        /**
+         * @return the index of an object with the same ID and content as the given
+         * one, or -1. Only the objects with its datetime are compared, found by
+         * binary search within its day.
+         */
+        int indexOfSame(CalendarObject calendarObject) {
+            int epochDay = calendarObject.getEpochDay();
+            int minuteOfDay = calendarObject.getMinuteOfDay();
+            int from = indexOfDay(epochDay - firstDay + 1);
+            for (int i = upperBound(epochDay, minuteOfDay) - 1 ; i >= from && minutesOfDay[i] == minuteOfDay ; i--) {
+                if (CalendarObjectStore.equals(ids[i], calendarObject.getID())
+                        && primaryColors[i] == calendarObject.getPrimaryColor()
+                        && secondaryColors[i] == calendarObject.getSecondaryColor())
+                    return i;
+            }
+            return -1;
+        }
+
+        /**
+         * @return the object at the given index, as it was given if the objects are
+         * kept, or else created from the values of the columns
+         */
+        CalendarObject get(int index) {
+            if (objects != null)
+                return objects[index];
+            return new StoredCalendarObject(ids[index],
+                    epochDays[index], minutesOfDay[index],
+                    primaryColors[index], secondaryColors[index]);
+        }
+
+        private void setKeepObjects(boolean keepObjects) {
+            if (keepObjects == (objects != null))
+                return;
+
+            if (keepObjects) {
+                CalendarObject[] keptObjects = new CalendarObject[epochDays.length];
+                for (int i = 0 ; i < size ; i++)
+                    keptObjects[i] = get(i);
+                objects = keptObjects;
+            }
+            else {
+                objects = null;
+            }
+        }
+
+        private boolean contains(int epochDay) {
+            return getMonthDateCode(epochDay) == getMonthDateCode(firstDay);
+        }
+
+        /**
+         * @return the index of the first object whose datetime is after the given one
+         */
+        private int upperBound(int epochDay, int minuteOfDay) {
+            return DayIndex.upperBound(epochDays, minutesOfDay, size, epochDay, minuteOfDay);
+        }
+
+        private void add(int index, CalendarObject calendarObject, boolean isLoaded) {
+            if (size == epochDays.length)
+                grow();
+
+            int epochDay = calendarObject.getEpochDay();
+            String id = calendarObject.getID();
+
+            int count = size - index;
+            System.arraycopy(epochDays, index, epochDays, index + 1, count);
+            System.arraycopy(minutesOfDay, index, minutesOfDay, index + 1, count);
+            System.arraycopy(primaryColors, index, primaryColors, index + 1, count);
+            System.arraycopy(secondaryColors, index, secondaryColors, index + 1, count);
+            System.arraycopy(ids, index, ids, index + 1, count);
+            System.arraycopy(loaded, index, loaded, index + 1, count);
+            if (objects != null)
+                System.arraycopy(objects, index, objects, index + 1, count);
+
+            epochDays[index] = epochDay;
+            minutesOfDay[index] = calendarObject.getMinuteOfDay();
+            primaryColors[index] = calendarObject.getPrimaryColor();
+            secondaryColors[index] = calendarObject.getSecondaryColor();
+            ids[index] = id == null ? null : id.intern();
+            loaded[index] = isLoaded;
+            if (objects != null)
+                objects[index] = calendarObject;
+            size++;
+
+            // Days after this object's day start one index later
+            for (int d = epochDay - firstDay + 2 ; d < dayIndex.length ; d++)
+                dayIndex[d]++;
+        }
+
+        /**
+         * Merge the (sorted) objects at [from, to) of the sorted keys into this month
+         */
+        private void merge(List<CalendarObject> calendarObjectList, long[] sortedKeys, int from, int to, boolean isLoaded) {
+            int capacity = Math.max(MIN_CAPACITY, size + to - from);
+            int[] newEpochDays = new int[capacity];
+            int[] newMinutesOfDay = new int[capacity];
+            int[] newPrimaryColors = new int[capacity];
+            int[] newSecondaryColors = new int[capacity];
+            String[] newIDs = new String[capacity];
+            boolean[] newLoaded = new boolean[capacity];
+            CalendarObject[] newObjects = objects == null ? null : new CalendarObject[capacity];
+
+            int i = 0;
+            int k = from;
+            int n = 0;
+            while (i < size || k < to) {
+                CalendarObject calendarObject = k < to ? calendarObjectList.get((int) sortedKeys[k]) : null;
+                if (calendarObject == null || (i < size
+                        && DayIndex.datetime(epochDays[i], minutesOfDay[i]) <= DayIndex.datetimeOfKey(sortedKeys[k]))) {
+                    newEpochDays[n] = epochDays[i];
+                    newMinutesOfDay[n] = minutesOfDay[i];
+                    newPrimaryColors[n] = primaryColors[i];
+                    newSecondaryColors[n] = secondaryColors[i];
+                    newIDs[n] = ids[i];
+                    newLoaded[n] = loaded[i];
+                    if (newObjects != null)
+                        newObjects[n] = objects[i];
+                    i++;
+                }
+                else {
+                    newEpochDays[n] = calendarObject.getEpochDay();
+                    newMinutesOfDay[n] = calendarObject.getMinuteOfDay();
+                    newPrimaryColors[n] = calendarObject.getPrimaryColor();
+                    newSecondaryColors[n] = calendarObject.getSecondaryColor();
+                    newIDs[n] = calendarObject.getID() == null ? null : calendarObject.getID().intern();
+                    newLoaded[n] = isLoaded;
+                    if (newObjects != null)
+                        newObjects[n] = calendarObject;
+                    k++;
+                }
+                n++;
+            }
+
+            epochDays = newEpochDays;
+            minutesOfDay = newMinutesOfDay;
+            primaryColors = newPrimaryColors;
+            secondaryColors = newSecondaryColors;
+            ids = newIDs;
+            loaded = newLoaded;
+            objects = newObjects;
+            size = n;
+            rebuildDayIndex();
+        }
+
+        private void move(int from, int to) {
+            epochDays[to] = epochDays[from];
+            minutesOfDay[to] = minutesOfDay[from];
+            primaryColors[to] = primaryColors[from];
+            secondaryColors[to] = secondaryColors[from];
+            ids[to] = ids[from];
+            loaded[to] = loaded[from];
+            if (objects != null)
+                objects[to] = objects[from];
+        }
+
+        /**
+         * Drop the objects from the given size on
+         */
+        private void truncate(int newSize) {
+            Arrays.fill(ids, newSize, size, null);
+            if (objects != null)
+                Arrays.fill(objects, newSize, size, null);
+            size = newSize;
+            rebuildDayIndex();
+        }
+
+        private void remove(int index) {
+            int epochDay = epochDays[index];
+
+            int count = size - index - 1;
+            System.arraycopy(epochDays, index + 1, epochDays, index, count);
+            System.arraycopy(minutesOfDay, index + 1, minutesOfDay, index, count);
+            System.arraycopy(primaryColors, index + 1, primaryColors, index, count);
+            System.arraycopy(secondaryColors, index + 1, secondaryColors, index, count);
+            System.arraycopy(ids, index + 1, ids, index, count);
+            System.arraycopy(loaded, index + 1, loaded, index, count);
+            if (objects != null)
+                System.arraycopy(objects, index + 1, objects, index, count);
+            size--;
+            ids[size] = null;
+            if (objects != null)
+                objects[size] = null;
+
+            for (int d = epochDay - firstDay + 2 ; d < dayIndex.length ; d++)
+                dayIndex[d]--;
+        }
+
+        private void grow() {
+            int capacity = Math.max(MIN_CAPACITY, epochDays.length * 2);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            minutesOfDay = Arrays.copyOf(minutesOfDay, capacity);
+            primaryColors = Arrays.copyOf(primaryColors, capacity);
+            secondaryColors = Arrays.copyOf(secondaryColors, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            loaded = Arrays.copyOf(loaded, capacity);
+            if (objects != null)
+                objects = Arrays.copyOf(objects, capacity);
+        }
+
+        private void rebuildDayIndex() {
+            DayIndex.build(epochDays, size, firstDay, dayIndex);
+        }
+    }
+
+    /**
+     * Added, removed and changed objects (matched by ID) between the store and a new list
+     */
+    static class Diff {
+
+        final List<CalendarObject> added = new ArrayList<>();
+        final List<CalendarObject> removed = new ArrayList<>();
+        final List<CalendarObject> changed = new ArrayList<>();
+        /**
+         * Previous version of each object in 'changed' (same order)
+         */
+        final List<CalendarObject> changedFrom = new ArrayList<>();
+        /**
+         * Objects with the same content as the stored ones but another instance, which
+         * only replace the stored references if the store keeps the objects (so nothing
+         * to rebind)
+         */
+        final List<CalendarObject> replaced = new ArrayList<>();
+
+        int size() {
+            return added.size() + removed.size() + changed.size();
+        }
+
+        /**
+         * @return the epoch days whose objects differ
+         */
+        SortedIntSet getDirtyDays() {
+            SortedIntSet dirtyDays = new SortedIntSet();
+            putDays(dirtyDays, added);
+            putDays(dirtyDays, removed);
+            putDays(dirtyDays, changed);
+            putDays(dirtyDays, changedFrom);
+            return dirtyDays;
+        }
+
+        private static void putDays(SortedIntSet dirtyDays, List<CalendarObject> calendarObjectList) {
+            for (CalendarObject object : calendarObjectList)
+                dirtyDays.add(object.getEpochDay());
+        }
+    }
+}
@@ -2,12 +2,14 @@ package org.hugoandrade.calendarviewlib;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
 import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.AttrRes;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
@@ -29,9 +31,14 @@ import android.widget.ImageView;
 import android.widget.Scroller;
 import android.widget.TextView;
 
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
 import org.hugoandrade.calendarviewlib.helpers.FrameLinearLayout;
+import org.hugoandrade.calendarviewlib.helpers.MonthGridView;
 import org.hugoandrade.calendarviewlib.helpers.MultipleTriangleView;
 import org.hugoandrade.calendarviewlib.helpers.SelectedTextView;
+import org.hugoandrade.calendarviewlib.helpers.SortedIntSet;
+import org.hugoandrade.calendarviewlib.helpers.SpanBars;
+import org.hugoandrade.calendarviewlib.helpers.SpanBarsView;
 import org.hugoandrade.calendarviewlib.helpers.YMDCalendar;
 
 import java.lang.reflect.Field;
@@ -39,23 +46,41 @@ import java.text.DateFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings({"unused", "FieldCanBeLocal", "WeakerAccess"})
 public class CalendarView extends FrameLayout {
 
     private static final String TAG = CalendarView.class.getSimpleName();
 
+    /**
+     * Each day cell is a FrameLinearLayout with a SelectedTextView and a MultipleTriangleView
+     */
+    public static final int RENDER_MODE_VIEWS = 0;
+
+    /**
+     * All day cells of a month are drawn on the canvas of a single MonthGridView
+     */
+    public static final int RENDER_MODE_CANVAS = 1;
+
     private static final String DEFAULT_MIN_DATE = "01/01/1992";
     private static final String DEFAULT_MAX_DATE = "01/01/2100";
     private static final String TEMPLATE = "MM/dd/yyyy";
 
+    static final int DEFAULT_MAX_RECYCLED_MONTH_VIEWS = 3;
+
+    private static final String[] DAY_OF_MONTH_TEXTS = new String[32];
+    static {
+        for (int i = 0 ; i < DAY_OF_MONTH_TEXTS.length ; i++)
+            DAY_OF_MONTH_TEXTS[i] = String.valueOf(i);
+    }
+
     private YMDCalendar mMinDate = new YMDCalendar(
             parseCalendar(DEFAULT_MIN_DATE, TEMPLATE, Locale.getDefault()));
     private YMDCalendar mMaxDate = new YMDCalendar(
@@ -66,6 +91,17 @@ public class CalendarView extends FrameLayout {
             R.id.tv_weekday_5, R.id.tv_weekday_6, R.id.tv_weekday_7
     };
 
+    /**
+     * Texts of the month and week headers, formatted once per locale and starting
+     * week day instead of on every page bound. At most MAX_MONTH_HEADER_TEXTS months
+     * are kept.
+     */
+    private static final int MAX_MONTH_HEADER_TEXTS = 120;
+    private Locale mHeaderLocale;
+    private int mHeaderStartingWeekDay;
+    private final String[] mWeekHeaderTexts = new String[7];
+    private final SparseArray<String> mMonthHeaderTexts = new SparseArray<>();
+
     private View mHeader;
     private View mWeekHeader;
     private CalendarViewPager mViewPager;
@@ -77,10 +113,60 @@ public class CalendarView extends FrameLayout {
     private YMDCalendar mCurrentDate = new YMDCalendar(Calendar.getInstance());
     private YMDCalendar mSelectedDate = new YMDCalendar(Calendar.getInstance());
 
+    private final RenderStats mRenderStats = new RenderStats();
+    private final MonthSnapshotCache mMonthSnapshotCache = new MonthSnapshotCache();
+
     /**
-     * Map of Calendar Object by Month
+     * Store of Calendar Object by Month
      */
-    private SparseArray<List<CalendarObject>> mObjectsByMonthMap = new SparseArray<>();
+    private final CalendarObjectStore mCalendarObjectStore = new CalendarObjectStore();
+    private final RecurrenceExpander mRecurrenceExpander = new RecurrenceExpander();
+    private final RangeIndex mRangeIndex = new RangeIndex();
+
+    /**
+     * Whether the calendar objects given are kept and handed out, instead of their
+     * values only (read by postCalendarObjectList on any thread)
+     */
+    private volatile boolean mKeepCalendarObjects;
+
+    /**
+     * Lists posted and batches committed from other threads, in the order they were,
+     * not yet applied (guarded by itself)
+     */
+    private final List<PendingUpdate> mPendingUpdates = new ArrayList<>();
+    private boolean mPendingUpdatesScheduled;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mSchedulePendingUpdatesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Without a window there is no next frame (and before API 24, a detached
+            // view would hold the runnable until attached), so apply them now
+            if (getWindowToken() != null)
+                postOnAnimation(mApplyPendingUpdatesRunnable);
+            else
+                applyPendingUpdates();
+        }
+    };
+    private final Runnable mApplyPendingUpdatesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyPendingUpdates();
+        }
+    };
+    private final MonthDataLoader mMonthDataLoader = new MonthDataLoader(
+            mCalendarObjectStore,
+            new MonthDataLoader.OnMonthLoadedListener() {
+                @Override
+                public void onMonthLoaded(int monthIndex) {
+                    mCalendarPagerAdapter.updateViewMonth(monthIndex);
+                }
+
+                @Override
+                public void onMonthRemoved(int monthIndex) {
+                    // Snapshots showing days of the month are out of date
+                    mCalendarPagerAdapter.invalidateSnapshots(monthIndex);
+                }
+            });
 
     /**
      * Listener for item click
@@ -97,6 +183,12 @@ public class CalendarView extends FrameLayout {
      */
     private SparseIntArray mAttributes = new SparseIntArray();
 
+    /**
+     * Attributes resolved once into final fields, read by the bind path instead of
+     * 'mAttributes'. Replaced as a whole (never modified) when the attributes change.
+     */
+    private Style mStyle;
+
     /**
      * Constructor
      */
@@ -186,7 +278,12 @@ public class CalendarView extends FrameLayout {
         mAttributes.put(Attr.startingWeekDay,
                 a.getInt(R.styleable.CalendarView_starting_weekday, Calendar.MONDAY));
 
+        mAttributes.put(Attr.renderMode,
+                a.getInt(R.styleable.CalendarView_render_mode, RENDER_MODE_VIEWS));
+
         a.recycle();
+
+        mStyle = new Style(mAttributes);
     }
 
     private void initChildViews(Context context) {
@@ -206,9 +303,17 @@ public class CalendarView extends FrameLayout {
                     mPageListener.onMonthChanged(ymdCalendar.month, ymdCalendar.year);
                 }
             }
+
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                if (state == ViewPager.SCROLL_STATE_IDLE)
+                    mCalendarPagerAdapter.startCapturingSnapshots();
+                else
+                    mCalendarPagerAdapter.stopCapturingSnapshots();
+            }
         });
 
-        setWeekHeader(this, mAttributes.get(Attr.weekHeaderMovable) == 1? GONE : VISIBLE);
+        setWeekHeader(this, mStyle.weekHeaderMovable? GONE : VISIBLE);
 
         ivPrevious = findViewById(R.id.ib_previous_month);
         ivPrevious.setOnClickListener(new OnClickListener() {
@@ -226,11 +331,11 @@ public class CalendarView extends FrameLayout {
             }
         });
 
-        changeVisibility(ivPrevious, mAttributes.get(Attr.monthHeaderShow) == 1? VISIBLE : GONE);
-        changeVisibility(ivNext, mAttributes.get(Attr.monthHeaderShow) == 1? VISIBLE : GONE);
+        changeVisibility(ivPrevious, mStyle.monthHeaderShow? VISIBLE : GONE);
+        changeVisibility(ivNext, mStyle.monthHeaderShow? VISIBLE : GONE);
 
-        setImageDrawableColor(ivPrevious, mAttributes.get(Attr.monthHeaderArrowsColor));
-        setImageDrawableColor(ivNext,     mAttributes.get(Attr.monthHeaderArrowsColor));
+        setImageDrawableColor(ivPrevious, mStyle.monthHeaderArrowsColor);
+        setImageDrawableColor(ivNext,     mStyle.monthHeaderArrowsColor);
     }
 
     public int getShownMonth() {
@@ -250,36 +355,277 @@ public class CalendarView extends FrameLayout {
     }
 
     public void addCalendarObject(CalendarObject calendarObject) {
-        addCalendarObjectToSparseArray(calendarObject);
-        mCalendarPagerAdapter.notifyDataSetChanged();
+        beginBatchEdit().add(calendarObject).commit();
     }
 
+    /**
+     * Remove the calendar object with the same ID, wherever it is (its datetime may
+     * have changed since it was added)
+     */
     public void removeCalendarObjectByID(CalendarObject calendarObject) {
-        int dateCode = getDateCode(calendarObject.getDatetime(), 1);
-
-        List<CalendarObject> calendarObjectList = mObjectsByMonthMap.get(dateCode);
-        if (calendarObjectList != null) {
-            CalendarObject objectToRemove = null;
-            for (CalendarObject object :calendarObjectList) {
-                if (object.getID() != null && object.getID().equals(calendarObject.getID())) {
-                    objectToRemove = object;
-                    break;
-                }
+        beginBatchEdit().remove(calendarObject).commit();
+    }
+
+    public void removeCalendarObjectByID(String id) {
+        beginBatchEdit().removeByID(id).commit();
+    }
+
+    /**
+     * Replace the calendar object with the same ID with the given one (eg. moved to
+     * another date), in a single change
+     */
+    public void updateCalendarObject(CalendarObject calendarObject) {
+        beginBatchEdit().update(calendarObject).commit();
+    }
+
+    /**
+     * Start a batch of changes to the calendar objects. Nothing changes until the
+     * batch is committed, which then updates the indexes once and rebinds only the
+     * day cells (of the live pages) whose objects changed, instead of once per object.
+     * A batch can be filled and committed on any thread (see BatchEditor.commit).
+     */
+    public BatchEditor beginBatchEdit() {
+        return new BatchEditor();
+    }
+
+    /**
+     * Add a calendar object that repeats according to the given rule. Its occurrences
+     * are computed only for the months being shown (and are not in getCalendarObjectByID).
+     * Adding a recurring object with the ID of an existing one replaces it.
+     */
+    public void addRecurringCalendarObject(String id, RecurrenceRule rule, int primaryColor, int secondaryColor) {
+        mRecurrenceExpander.put(id, rule, primaryColor, secondaryColor);
+        mCalendarPagerAdapter.notifyDataSetChanged();
+    }
+
+    public void removeRecurringCalendarObject(String id) {
+        if (mRecurrenceExpander.remove(id))
+            mCalendarPagerAdapter.notifyDataSetChanged();
+    }
+
+    public void clearRecurringCalendarObjects() {
+        mRecurrenceExpander.clear();
+        mCalendarPagerAdapter.notifyDataSetChanged();
+    }
+
+    /**
+     * Set the list of calendar objects. The list is compared (by ID) with the current
+     * one and only the day cells of the shown months whose objects changed are rebound.
+     * With a MonthDataSource, the shown months are then loaded from it again.
+     */
+    public void setCalendarObjectList(List<CalendarObject> calendarObjectList) {
+        // Lists posted and batches committed before are now out of date
+        synchronized (mPendingUpdates) {
+            mPendingUpdates.clear();
+        }
+
+        // Objects that span several days go to the range index
+        List<CalendarObject> multiDayObjectList = new ArrayList<>();
+        List<CalendarObject> dayObjectList = calendarObjectList;
+        for (CalendarObject calendarObject : calendarObjectList) {
+            if (calendarObject.isMultiDay()) {
+                if (multiDayObjectList.isEmpty())
+                    dayObjectList = new ArrayList<>(calendarObjectList.size());
+                multiDayObjectList.add(calendarObject);
+            }
+        }
+        if (!multiDayObjectList.isEmpty())
+            for (CalendarObject calendarObject : calendarObjectList)
+                if (!calendarObject.isMultiDay())
+                    dayObjectList.add(calendarObject);
+
+        CalendarObjectStore.Diff diff = mCalendarObjectStore.diff(dayObjectList);
+        mCalendarObjectStore.apply(diff, dayObjectList);
+        mMonthDataLoader.invalidateLoadedMonths();
+
+        if (diff.size() != 0)
+            mCalendarPagerAdapter.updateViewDays(diff.getDirtyDays());
+
+        if (!mRangeIndex.isEmpty() || !multiDayObjectList.isEmpty()) {
+            mRangeIndex.setAll(multiDayObjectList);
+            mCalendarPagerAdapter.updateViewSpans();
+        }
+    }
+
+    /**
+     * Set the list of calendar objects from any thread. The objects are indexed on the
+     * calling thread and the result is applied by the view on its next frame, in order
+     * with the other lists posted and the batches committed (from any thread): a list
+     * replaces what was posted or committed before it, and the batches committed after
+     * it are applied on top of it. The objects (and their Calendars) must not be
+     * modified afterwards.
+     */
+    public void postCalendarObjectList(List<CalendarObject> calendarObjectList) {
+        CalendarObjectSnapshot snapshot = new CalendarObjectSnapshot(
+                new ArrayList<>(calendarObjectList), mKeepCalendarObjects);
+        postUpdate(new PendingUpdate(snapshot, null, null));
+    }
+
+    /**
+     * Queue an update to be applied on the main thread on the next frame (or at once
+     * if the view is not attached). Can be called on any thread: the frame is only
+     * requested from the main thread, through the main looper.
+     */
+    private void postUpdate(PendingUpdate update) {
+        boolean schedule;
+        synchronized (mPendingUpdates) {
+            mPendingUpdates.add(update);
+            schedule = !mPendingUpdatesScheduled;
+            mPendingUpdatesScheduled = true;
+        }
+        if (schedule)
+            mMainHandler.post(mSchedulePendingUpdatesRunnable);
+    }
+
+    /**
+     * Apply the lists posted and the batches committed from other threads, in order.
+     * Only the last list and the batches after it need to be applied.
+     */
+    private void applyPendingUpdates() {
+        List<PendingUpdate> updates;
+        synchronized (mPendingUpdates) {
+            mPendingUpdatesScheduled = false;
+            if (mPendingUpdates.isEmpty())
+                return;
+            updates = new ArrayList<>(mPendingUpdates);
+            mPendingUpdates.clear();
+        }
+
+        int first = 0;
+        for (int i = 0 ; i < updates.size() ; i++)
+            if (updates.get(i).snapshot != null)
+                first = i;
+
+        for (int i = first ; i < updates.size() ; i++) {
+            PendingUpdate update = updates.get(i);
+            if (update.snapshot != null)
+                applySnapshot(update.snapshot);
+            else
+                applyBatch(update.addedList, update.removedIDList);
+        }
+    }
+
+    /**
+     * Adopt the objects indexed by a posted list, rebinding only the day cells whose
+     * objects changed
+     */
+    private void applySnapshot(CalendarObjectSnapshot snapshot) {
+        SortedIntSet dirtyDays = mCalendarObjectStore.getDirtyDays(snapshot.store);
+        mCalendarObjectStore.set(snapshot.store);
+        mMonthDataLoader.invalidateLoadedMonths();
+        if (dirtyDays.size() != 0)
+            mCalendarPagerAdapter.updateViewDays(dirtyDays);
+
+        if (!mRangeIndex.isEmpty() || !snapshot.rangeIndex.isEmpty()) {
+            mRangeIndex.set(snapshot.rangeIndex);
+            mCalendarPagerAdapter.updateViewSpans();
+        }
+    }
+
+    /**
+     * Remove the objects with the given IDs and add the given objects, rebinding only
+     * the day cells whose objects changed. Removals (including the old version of
+     * updated objects) are applied before additions.
+     */
+    private void applyBatch(List<CalendarObject> addedList, List<String> removedIDList) {
+        SortedIntSet dirtyDays = new SortedIntSet();
+        boolean spansChanged = false;
+
+        // Objects that span several days are in the range index, the others in the store
+        for (String id : removedIDList)
+            spansChanged |= mRangeIndex.remove(id) != null;
+        for (CalendarObject calendarObject : mCalendarObjectStore.removeAll(removedIDList))
+            dirtyDays.add(calendarObject.getEpochDay());
+
+        List<CalendarObject> dayObjectList = new ArrayList<>(addedList.size());
+        for (CalendarObject calendarObject : addedList) {
+            if (calendarObject.isMultiDay()) {
+                mRangeIndex.add(calendarObject);
+                spansChanged = true;
             }
-            if (objectToRemove != null) {
-                calendarObjectList.remove(objectToRemove);
+            else {
+                dayObjectList.add(calendarObject);
+                dirtyDays.add(calendarObject.getEpochDay());
             }
         }
+        mCalendarObjectStore.addAll(dayObjectList);
+
+        if (dirtyDays.size() != 0)
+            mCalendarPagerAdapter.updateViewDays(dirtyDays);
+        if (spansChanged)
+            mCalendarPagerAdapter.updateViewSpans();
+    }
+
+    /**
+     * Set a source the calendar objects are loaded from, one month at a time, as
+     * month pages are shown (instead of setting them all with 'setCalendarObjectList').
+     * Months are loaded on a single background (daemon) thread, shared by all
+     * the data sources set on this calendar.
+     */
+    public void setMonthDataSource(MonthDataSource dataSource) {
+        setMonthDataSource(dataSource, null);
+    }
+
+    /**
+     * Set a source the calendar objects are loaded from, one month at a time, as
+     * month pages are shown. Months are loaded on the given executor and the
+     * objects of a loaded month replace the ones the calendar had for that month.
+     */
+    public void setMonthDataSource(MonthDataSource dataSource, Executor executor) {
+        mMonthDataLoader.setDataSource(dataSource, executor);
+        // Rebinding the pages loads their months
         mCalendarPagerAdapter.notifyDataSetChanged();
     }
 
-    public void setCalendarObjectList(List<CalendarObject> calendarObjectList) {
-        mObjectsByMonthMap.clear();
+    /**
+     * Set how many months before and after the shown one are loaded from the
+     * MonthDataSource. Defaults to 1.
+     */
+    public void setMonthPrefetchDistance(int distance) {
+        mMonthDataLoader.setPrefetchDistance(Math.max(0, distance));
+    }
 
-        for (CalendarObject object : calendarObjectList)
-            addCalendarObjectToSparseArray(object);
+    /**
+     * Set how many months loaded from the MonthDataSource are kept. The objects of
+     * the least recently shown months are dropped beyond it (and loaded again when
+     * shown). Defaults to 12.
+     */
+    public void setMaxLoadedMonths(int max) {
+        mMonthDataLoader.setMaxLoadedMonths(Math.max(1, max));
+    }
 
-        mCalendarPagerAdapter.notifyDataSetChanged();
+    /**
+     * Set how many calendar objects loaded from the MonthDataSource are kept. The
+     * objects of the least recently shown months are dropped beyond it (but never
+     * the ones of the visible month and its neighbours). Defaults to 10000.
+     */
+    public void setMaxLoadedObjects(int max) {
+        mMonthDataLoader.setMaxLoadedObjects(Math.max(0, max));
+    }
+
+    /**
+     * @return the hit, miss and eviction counters of the months loaded from the MonthDataSource
+     */
+    public MonthCacheStats getMonthCacheStats() {
+        return mMonthDataLoader.getStats();
+    }
+
+    /**
+     * Keep the calendar objects given from now on, and hand out those very objects
+     * (eg. to getCalendarObjectByID and the OnItemClickListener), with their class,
+     * seconds and time zone. Off by default: the calendar only keeps the values of
+     * the objects (ID, datetimes to the minute and colors) and hands out new objects
+     * created from them. Set it before the calendar objects.
+     */
+    public void setKeepCalendarObjects(boolean keep) {
+        mKeepCalendarObjects = keep;
+        mCalendarObjectStore.setKeepObjects(keep);
+        mRangeIndex.setKeepObjects(keep);
+    }
+
+    public CalendarObject getCalendarObjectByID(String id) {
+        CalendarObject calendarObject = mCalendarObjectStore.get(id);
+        return calendarObject != null ? calendarObject : mRangeIndex.get(id);
     }
 
     public void setOnItemClickedListener(OnItemClickListener listener) {
@@ -302,13 +648,65 @@ public class CalendarView extends FrameLayout {
         mCalendarPagerAdapter.setCurrentDate(date);
     }
 
-    private void setMonthHeader(View view, Calendar month) {
+    /**
+     * Keep bitmaps of the month pages last shown, within the given number of bytes
+     * (0, the default, disables it). When a page of one of those months is shown
+     * again (eg. swiping back and forth), its bitmap is shown at once and the page
+     * is bound on the next frame. Bitmaps are dropped when what they show changes.
+     *
+     * The bitmaps are drawn while the calendar is idle, one page per frame, never
+     * while swiping, and are reused. Each costs width * height * 4 bytes, so it is
+     * off by default; only enable it if measuring shows that binding a page is slow.
+     */
+    public void setMonthSnapshotCacheSize(int maxBytes) {
+        mMonthSnapshotCache.setMaxBytes(Math.max(0, maxBytes));
+        mCalendarPagerAdapter.startCapturingSnapshots();
+    }
+
+    /**
+     * Set how many destroyed month pages are kept to be re-bound, instead of
+     * inflating a new page on every swipe. Defaults to 3.
+     */
+    public void setMonthViewPoolSize(int size) {
+        mCalendarPagerAdapter.setMaxRecycledMonthViews(Math.max(0, size));
+    }
+
+    /**
+     * @return the number of month pages currently held by the calendar (for debugging).
+     * Never higher than the pages kept alive by the ViewPager.
+     */
+    public int getRetainedMonthViewCount() {
+        return mCalendarPagerAdapter.getRetainedMonthViewCount();
+    }
+
+    /**
+     * @return the counters of the month pages inflated and bound (disabled by default)
+     */
+    RenderStats getRenderStats() {
+        return mRenderStats;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = mRenderStats.start();
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        mRenderStats.onMeasured(start);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        long start = mRenderStats.start();
+        super.onLayout(changed, left, top, right, bottom);
+        mRenderStats.onLaidOut(start);
+    }
+
+    private void setMonthHeader(View view, int monthIndex) {
         TextView tvMonth = view.findViewById(R.id.tv_month);
-        tvMonth.setBackgroundColor(mAttributes.get(Attr.monthHeaderBackgroundColor));
-        tvMonth.setTextColor(mAttributes.get(Attr.monthHeaderTextColor));
-        tvMonth.setText(DateFormat.format("MMMM yyyy", month));
+        tvMonth.setBackgroundColor(mStyle.monthHeaderBackgroundColor);
+        tvMonth.setTextColor(mStyle.monthHeaderTextColor);
+        changeText(tvMonth, getMonthHeaderText(monthIndex));
         tvMonth.setPaintFlags(tvMonth.getPaintFlags() | Paint.UNDERLINE_TEXT_FLAG);
-        changeVisibility(tvMonth, mAttributes.get(Attr.monthHeaderShow) == 1? VISIBLE : GONE);
+        changeVisibility(tvMonth, mStyle.monthHeaderShow? VISIBLE : GONE);
     }
 
     private void setWeekHeader(View view, int weekHeaderVisible) {
@@ -323,25 +721,19 @@ public class CalendarView extends FrameLayout {
             return;
         }
 
-        int dayOffset = mAttributes.get(Attr.dayOffset);
-        int startingWeekDay = mAttributes.get(Attr.startingWeekDay);
-        int weekHeaderTextColor = mAttributes.get(Attr.weekHeaderTextColor);
-        int weekHeaderBackgroundColor = mAttributes.get(Attr.weekHeaderBackgroundColor);
-        int weekHeaderOffsetDayTextColor = mAttributes.get(Attr.weekHeaderOffsetDayTextColor);
-        int weekHeaderOffsetDayBackgroundColor = mAttributes.get(Attr.weekHeaderOffsetDayBackgroundColor);
+        Style style = mStyle;
+        int weekHeaderTextColor = style.weekHeaderTextColor;
+        int weekHeaderBackgroundColor = style.weekHeaderBackgroundColor;
+        int weekHeaderOffsetDayTextColor = style.weekHeaderOffsetDayTextColor;
+        int weekHeaderOffsetDayBackgroundColor = style.weekHeaderOffsetDayBackgroundColor;
 
-        String[] weekHeaderTexts = new String[7];
-        for (int i = 0 ; i < weekHeaderTexts.length ; i++) {
-            int dayIndex = (i + startingWeekDay - 1)%7 + 1;
-            weekHeaderTexts[i] = simpleText(new DateFormatSymbols().getWeekdays()[dayIndex]);
-        }
+        String[] weekHeaderTexts = getWeekHeaderTexts();
 
         // Set TextColor
-        int j = (7 + dayOffset - startingWeekDay)%7;
+        int j = style.offsetColumn;
         for (int i = 0 ; i < weekHeaderIds.length ; i++) {
             TextView tv = view.findViewById(weekHeaderIds[i]);
-            tv.setText(weekHeaderTexts[i]);
-            tv.setAllCaps(true);
+            changeText(tv, weekHeaderTexts[i]);
             tv.setTextSize(TypedValue.COMPLEX_UNIT_SP, 8);
 
             if (i != j) {
@@ -356,7 +748,7 @@ public class CalendarView extends FrameLayout {
     }
 
     private void setMonthArrows(int position) {
-        if (mAttributes.get(Attr.monthHeaderShow) == 0)
+        if (!mStyle.monthHeaderShow)
             return;
 
         if (position == 0) {
@@ -373,19 +765,62 @@ public class CalendarView extends FrameLayout {
         }
     }
 
-    private void addCalendarObjectToSparseArray(CalendarObject calendarObject) {
-        int dateCode = getDateCode(calendarObject.getDatetime(), 1);
-        if (mObjectsByMonthMap.get(dateCode) != null) {
-            mObjectsByMonthMap.get(dateCode).add(calendarObject);
-            Collections.sort(mObjectsByMonthMap.get(dateCode), new Comparator<CalendarObject>() {
-                @Override
-                public int compare(CalendarObject o1, CalendarObject o2) {
-                    return o1.getDatetime().after(o2.getDatetime())? 1 : -1;
-                }
-            });
-        } else {
-            mObjectsByMonthMap.put(dateCode, new ArrayList<CalendarObject>());
-            mObjectsByMonthMap.get(dateCode).add(calendarObject);
+    /**
+     * @return the text of the header of the given month, formatted once per locale
+     */
+    String getMonthHeaderText(int monthIndex) {
+        updateHeaderTexts();
+
+        String text = mMonthHeaderTexts.get(monthIndex);
+        if (text == null) {
+            if (mMonthHeaderTexts.size() == MAX_MONTH_HEADER_TEXTS)
+                mMonthHeaderTexts.clear();
+
+            Calendar month = Calendar.getInstance();
+            month.clear();
+            month.set(EpochDay.yearOfMonthIndex(monthIndex), EpochDay.monthOfMonthIndex(monthIndex), 1);
+            text = DateFormat.format("MMMM yyyy", month).toString();
+            mMonthHeaderTexts.put(monthIndex, text);
+        }
+        return text;
+    }
+
+    /**
+     * @return the texts of the week header, from the starting week day on. Must not
+     * be modified.
+     */
+    String[] getWeekHeaderTexts() {
+        updateHeaderTexts();
+        return mWeekHeaderTexts;
+    }
+
+    /**
+     * Format the header texts again if the locale or the starting week day changed
+     */
+    private void updateHeaderTexts() {
+        Locale locale = Locale.getDefault();
+        int startingWeekDay = mStyle.startingWeekDay;
+        if (locale.equals(mHeaderLocale) && startingWeekDay == mHeaderStartingWeekDay)
+            return;
+
+        mHeaderLocale = locale;
+        mHeaderStartingWeekDay = startingWeekDay;
+        mMonthHeaderTexts.clear();
+
+        String[] weekdays = new DateFormatSymbols(locale).getWeekdays();
+        for (int i = 0 ; i < mWeekHeaderTexts.length ; i++) {
+            int dayIndex = (i + startingWeekDay - 1)%7 + 1;
+            mWeekHeaderTexts[i] = simpleText(weekdays[dayIndex]);
+        }
+    }
+
+    /**
+     * Set the text only if it is not the one shown (the header texts are cached, so
+     * the same instance), as setting it again lays the TextView out again
+     */
+    private void changeText(TextView view, String text) {
+        if (view.getText() != text) {
+            view.setText(text);
         }
     }
 
@@ -401,17 +836,16 @@ public class CalendarView extends FrameLayout {
         }
     }
 
-    private static int getDateCode(Calendar c, int type) {
+    static int getDateCode(Calendar c, int type) {
         return getDateCode(new YMDCalendar(c), type);
     }
 
-    private static int getDateCode(YMDCalendar c, int type) {
-        if (type == 1)
-            return c.year * 100 + c.month;
-        else if (type == 2)
-            return c.month * 100 + c.day;
-        else
-            return -1;
+    static int getDateCode(YMDCalendar c, int type) {
+        return YMDCalendar.getDateCode(c, type);
+    }
+
+    private static int getMonthIndex(YMDCalendar c) {
+        return EpochDay.monthIndex(c.year, c.month);
     }
 
     @Override
@@ -429,6 +863,14 @@ public class CalendarView extends FrameLayout {
         static final int THIS_MONTH = 0;
         static final int NEXT_MONTH = 1;
 
+        static final int MAX_NOTES_PER_DAY = 8;
+
+        static final int FLAG_OFFSET_DAY = 1;
+        static final int FLAG_OTHER_MONTH = 1 << 1;
+        static final int FLAG_BEFORE_MINIMUM_DATE = 1 << 2;
+
+        static final int NO_MONTH = Integer.MIN_VALUE;
+
         private final int[] dayViewIDs = new int[] {
                 R.id.day_item_1_1, R.id.day_item_1_2, R.id.day_item_1_3, R.id.day_item_1_4,
                 R.id.day_item_1_5, R.id.day_item_1_6, R.id.day_item_1_7,
@@ -454,9 +896,53 @@ public class CalendarView extends FrameLayout {
 
         private int mCurrentPage;
         private int mInitialPage;
-        private Calendar mInitialMonth;
+        private int mInitialMonthIndex;
 
-        private SparseArray<View> mInstantiatedMonthViewList = new SparseArray<>();
+        /**
+         * Live (attached) month pages, keyed by month index. Entries are added in
+         * 'setMonthView' and removed in 'destroyItem' with the same key, so the
+         * registry never holds more than the pages the ViewPager keeps alive.
+         */
+        private final SparseArray<ViewHolder> mInstantiatedMonthViewList = new SparseArray<>();
+
+        /**
+         * Pool of destroyed month pages, re-bound instead of inflating new ones
+         */
+        private final List<ViewHolder> mRecycledMonthViewList = new ArrayList<>();
+
+        /**
+         * Draws the snapshot of one live page that needs it per frame (while idle)
+         */
+        private final Runnable mCaptureSnapshotRunnable = new Runnable() {
+            @Override
+            public void run() {
+                for (int m = 0 ; m < mInstantiatedMonthViewList.size() ; m++) {
+                    ViewHolder holder = mInstantiatedMonthViewList.valueAt(m);
+                    View page = holder.container;
+
+                    // Only pages that show the current versions
+                    if (holder.pendingMonth == NO_MONTH
+                            && holder.version == mMonthSnapshotCache.getVersion()
+                            && mMonthSnapshotCache.needs(holder.month, page.getWidth(), page.getHeight())) {
+                        mMonthSnapshotCache.put(holder.month, page);
+                        postOnAnimation(this);
+                        return;
+                    }
+                }
+            }
+        };
+
+        /**
+         * Colors of the notes of the day cell being bound
+         */
+        private final int[] mNoteColors = new int[MAX_NOTES_PER_DAY];
+        private final int[] mNoteBackgroundColors = new int[MAX_NOTES_PER_DAY];
+
+        /**
+         * Last day of the bar in each lane, while the bars of a page are being laid out
+         */
+        private final int[] mLaneEndDays = new int[SpanBars.MAX_LANES];
+        private int mMaxRecycledMonthViews = DEFAULT_MAX_RECYCLED_MONTH_VIEWS;
 
         private int mRunnablePage;
         private Handler mHandler = new Handler();
@@ -482,8 +968,7 @@ public class CalendarView extends FrameLayout {
             int initialPosition = diffYear * 12 + monthOffset;
 
             mInitialPage = initialPosition;
-            mInitialMonth = Calendar.getInstance();
-            mInitialMonth.set(mSelectedDate.year, mSelectedDate.month, 10);
+            mInitialMonthIndex = getMonthIndex(mSelectedDate);
 
             mCurrentPage = initialPosition;
         }
@@ -492,19 +977,96 @@ public class CalendarView extends FrameLayout {
         @Override
         public Object instantiateItem(@NonNull ViewGroup container, int position) {
             // Set "Month-Year" of this page
-            Calendar month = (Calendar) mInitialMonth.clone();
-            month.add(Calendar.MONTH, position - mInitialPage);
+            int month = getMonthIndexAtPosition(position);
+
+            // Reuse a destroyed page, if any, and only inflate a new one otherwise
+            ViewHolder holder;
+            if (mRecycledMonthViewList.isEmpty()) {
+                long start = mRenderStats.start();
+                LayoutInflater vi = LayoutInflater.from(container.getContext());
+                View monthContainer = vi.inflate(
+                        mStyle.renderMode == RENDER_MODE_CANVAS
+                                ? R.layout.xml_calendar_container_canvas
+                                : R.layout.xml_calendar_container,
+                        container, false);
+                holder = new ViewHolder(position, monthContainer);
+
+                mRenderStats.onPageInflated(start, monthContainer);
+            }
+            else {
+                holder = mRecycledMonthViewList.remove(mRecycledMonthViewList.size() - 1);
+                holder.position = position;
+                holder.reset();
+
+                mRenderStats.onPageRecycled();
+            }
+
+            // Show the snapshot of the month, if any, and bind the page on the next frame
+            Bitmap snapshot = !mMonthSnapshotCache.isEnabled() || holder.snapshotView == null
+                    ? null
+                    : mMonthSnapshotCache.acquire(month, mViewPager.getWidth(), mViewPager.getHeight());
+            if (snapshot != null) {
+                holder.snapshot = snapshot;
+                holder.snapshotView.setImageBitmap(snapshot);
+                holder.snapshotView.setVisibility(VISIBLE);
+                holder.pendingMonth = month;
+                postOnAnimation(holder);
+
+                mRenderStats.onPageFromSnapshot();
+            }
+            else {
+                bindPage(holder, month);
+            }
+
+            container.addView(holder.container);
+
+            return holder;
+        }
+
+        private void bindPage(ViewHolder holder, int month) {
+            setMonthHeader(holder.container, month);
+            setWeekHeader(holder.container, mStyle.weekHeaderMovable ? VISIBLE : INVISIBLE);
+            setMonthView(holder, month);
+        }
+
+        /**
+         * Bind a page instantiated with the snapshot of its month, and remove the snapshot
+         */
+        private void bindPendingPage(ViewHolder holder) {
+            if (holder.pendingMonth == NO_MONTH)
+                return;
 
-            LayoutInflater vi = LayoutInflater.from(container.getContext());
-            View monthContainer = vi.inflate(R.layout.xml_calendar_container, container, false);
+            int month = holder.pendingMonth;
+            holder.pendingMonth = NO_MONTH;
+            bindPage(holder, month);
+            clearSnapshot(holder);
+        }
 
-            setMonthHeader(monthContainer, month);
-            setWeekHeader(monthContainer, mAttributes.get(Attr.weekHeaderMovable) == 1 ? VISIBLE : INVISIBLE);
-            setMonthView(monthContainer, month);
+        private void clearSnapshot(ViewHolder holder) {
+            holder.snapshotView.setVisibility(GONE);
+            holder.snapshotView.setImageBitmap(null);
+            mMonthSnapshotCache.release(holder.snapshot);
+            holder.snapshot = null;
+        }
 
-            container.addView(monthContainer);
+        /**
+         * Draw the missing snapshots of the live pages, one page per frame
+         */
+        void startCapturingSnapshots() {
+            removeCallbacks(mCaptureSnapshotRunnable);
+            if (mMonthSnapshotCache.isEnabled())
+                postOnAnimation(mCaptureSnapshotRunnable);
+        }
+
+        void stopCapturingSnapshots() {
+            removeCallbacks(mCaptureSnapshotRunnable);
+        }
 
-            return new ViewHolder(position, monthContainer);
+        @Override
+        public void notifyDataSetChanged() {
+            // All pages are instantiated again, and may look different
+            mMonthSnapshotCache.invalidateAll();
+            super.notifyDataSetChanged();
         }
 
         @Override
@@ -524,153 +1086,262 @@ public class CalendarView extends FrameLayout {
 
         @Override
         public void destroyItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
-            mInstantiatedMonthViewList.remove(position);
-            container.removeView(((ViewHolder) object).container);
-        }
-
-        private void setMonthView(View view, final Calendar month) {
-            view.findViewById(R.id.ll_calendar_container)
-                    .setBackgroundColor(mAttributes.get(Attr.contentBackgroundColor));
-
-            List<View> viewList = getDayViewList(view);
-            List<YMDCalendar> dayList = getDayList(month);
-            SparseArray<List<CalendarObject>> mObjectsByDayMap = getCalendarObjectsOfMonthByDay(month);
-
-            List<CalendarObject> emptyEventList = new ArrayList<>();
-            for (int i = 0 ; i < dayList.size() ; i++) {
-                YMDCalendar day = dayList.get(i);
-                onBindView(i,
-                           month,
-                           day,
-                           mObjectsByDayMap.get(getDateCode(day, 2), emptyEventList),
-                           viewList.get(i));
+            ViewHolder holder = (ViewHolder) object;
+
+            if (holder.pendingMonth != NO_MONTH) {
+                // Never bound
+                removeCallbacks(holder);
+                holder.pendingMonth = NO_MONTH;
+                clearSnapshot(holder);
             }
 
-            mInstantiatedMonthViewList.put(getDateCode(month, 1), view);
+            unregisterMonthView(holder);
+            container.removeView(holder.container);
+
+            if (mRecycledMonthViewList.size() < mMaxRecycledMonthViews)
+                mRecycledMonthViewList.add(holder);
+        }
+
+        void setMaxRecycledMonthViews(int max) {
+            mMaxRecycledMonthViews = max;
+            while (mRecycledMonthViewList.size() > max)
+                mRecycledMonthViewList.remove(mRecycledMonthViewList.size() - 1);
         }
 
-        private void onBindView(int position,
-                                final Calendar month,
-                                final YMDCalendar day,
-                                final List<CalendarObject> calendarObjectList,
-                                View view) {
+        private void setMonthView(ViewHolder holder, int month) {
+            long start = mRenderStats.start();
+
+            holder.calendarContainer.setBackgroundColor(mStyle.contentBackgroundColor);
 
-            FrameLinearLayout container = (FrameLinearLayout) view;
-            SelectedTextView tvDay = view.findViewById(R.id.tv_calendar_day);
-            MultipleTriangleView vNotes = view.findViewById(R.id.v_notes);
+            Style style = mStyle;
+            int firstDay = getFirstDayOfGrid(month);
+            int minDay = EpochDay.of(mMinDate);
 
-            // Set Notes
-            vNotes.setColor(Color.TRANSPARENT);
-            vNotes.setTriangleBackgroundColor(Color.TRANSPARENT);
-            int i = 0;
-            for (CalendarObject c : calendarObjectList) {
-                vNotes.setColor(i, c.getSecondaryColor());
-                vNotes.setTriangleBackgroundColor(i, c.getPrimaryColor());
+            holder.month = month;
+            holder.version = mMonthSnapshotCache.getVersion();
+            for (int i = 0 ; i < NUMBER_OF_DAYS ; i++) {
+                int day = firstDay + i;
+                int flags = style.cellFlags[i];
+                if (EpochDay.monthIndex(EpochDay.year(day), EpochDay.month(day)) != month)
+                    flags |= FLAG_OTHER_MONTH;
+                if (day < minDay)
+                    flags |= FLAG_BEFORE_MINIMUM_DATE;
 
-                i++;
-                if (i == vNotes.getNumberOfItems())
-                    break;
+                holder.days[i] = day;
+                holder.dayFlags[i] = flags;
+
+                onBindView(holder, i);
             }
 
-            // Set day TextView (default)
-            tvDay.setText(String.valueOf(day.day));
-            tvDay.setTextColor(mAttributes.get(Attr.dayTextColor));
-            tvDay.setSelectedColor(Color.TRANSPARENT);
-            tvDay.setSelectedEnabled(false);
-            changeTypeface(tvDay, Typeface.NORMAL);
-            container.setFrameColor(Color.TRANSPARENT);
-            container.setBackgroundColor(mAttributes.get(Attr.dayBackgroundColor));
+            bindSpans(holder);
+            registerMonthView(holder);
+            mMonthDataLoader.load(month);
+
+            mRenderStats.onPageBound(start);
+        }
+
+        private void registerMonthView(ViewHolder holder) {
+            mInstantiatedMonthViewList.put(holder.month, holder);
+
+            // Should not happen (every page is destroyed by the ViewPager), but never
+            // retain more pages than the ViewPager can keep alive
+            int maxLiveMonthViews = 2 * mViewPager.getOffscreenPageLimit() + 1;
+            while (mInstantiatedMonthViewList.size() > maxLiveMonthViews) {
+                int currentMonth = getMonthIndexAtPosition(mCurrentPage);
+                int first = mInstantiatedMonthViewList.keyAt(0);
+                int last = mInstantiatedMonthViewList.keyAt(mInstantiatedMonthViewList.size() - 1);
+                mInstantiatedMonthViewList.remove(
+                        currentMonth - first > last - currentMonth ? first : last);
+            }
+        }
+
+        private void unregisterMonthView(ViewHolder holder) {
+            // Only remove the entry if it was not already taken by a newer page of the same month
+            if (mInstantiatedMonthViewList.get(holder.month) == holder)
+                mInstantiatedMonthViewList.remove(holder.month);
+        }
+
+        int getRetainedMonthViewCount() {
+            return mInstantiatedMonthViewList.size();
+        }
+
+        private void onBindView(ViewHolder holder, int position) {
+            mRenderStats.onCellBound();
+
+            int day = holder.days[position];
+            int flags = holder.dayFlags[position];
+            int year = EpochDay.year(day);
+            int month = EpochDay.month(day);
+            int dayOfMonth = EpochDay.dayOfMonth(day);
+            Style style = mStyle;
+
+            // Set day (default)
+            int textColor = style.dayTextColor;
+            int textStyle = Typeface.NORMAL;
+            int circleColor = Color.TRANSPARENT;
+            boolean circleEnabled = false;
+            int frameColor = Color.TRANSPARENT;
+            int backgroundColor = style.dayBackgroundColor;
 
             // Set offset day (sundays or mondays)
-            int dayOffset = mAttributes.get(Attr.dayOffset);
-            int startingWeekDay = mAttributes.get(Attr.startingWeekDay);
-            boolean isOffsetDay = position % 7 == (7 + dayOffset - startingWeekDay) % 7;
+            boolean isOffsetDay = (flags & FLAG_OFFSET_DAY) != 0;
             if (isOffsetDay) {
-                tvDay.setTextColor(mAttributes.get(Attr.offsetDayTextColor));
-                container.setBackgroundColor(mAttributes.get(Attr.offsetDayBackgroundColor));
+                textColor = style.offsetDayTextColor;
+                backgroundColor = style.offsetDayBackgroundColor;
             }
 
             // Set selected day (frame)
-            if (day.equals(mSelectedDate)) {
+            if (isSameDay(day, mSelectedDate)) {
                 if (isOffsetDay) {
-                    tvDay.setTextColor(mAttributes.get(Attr.offsetDayTextColor));
+                    textColor = style.offsetDayTextColor;
                 } else {
-                    tvDay.setTextColor(mAttributes.get(Attr.selectedDayTextColor));
+                    textColor = style.selectedDayTextColor;
                 }
-                container.setFrameColor(mAttributes.get(Attr.selectedDayBorderColor));
-                container.setBackgroundColor(mAttributes.get(Attr.selectedDayBackgroundColor));
+                frameColor = style.selectedDayBorderColor;
+                backgroundColor = style.selectedDayBackgroundColor;
             }
 
             // Set current day
-            if (day.equals(mCurrentDate)) {
+            if (isSameDay(day, mCurrentDate)) {
                 if (isOffsetDay) {
-                    tvDay.setTextColor(mAttributes.get(Attr.offsetDayTextColor));
-                    tvDay.setSelectedColor(mAttributes.get(Attr.offsetDayTextColor));
+                    textColor = style.offsetDayTextColor;
+                    circleColor = style.offsetDayTextColor;
                 } else {
-                    tvDay.setTextColor(mAttributes.get(Attr.currentDayTextColor));
-                    tvDay.setSelectedColor(mAttributes.get(Attr.currentDayCircleColor));
+                    textColor = style.currentDayTextColor;
+                    circleColor = style.currentDayCircleColor;
                 }
-                changeTypeface(tvDay, mAttributes.get(Attr.currentDayTextStyle));
-                tvDay.setSelectedEnabled(mAttributes.get(Attr.currentDayCircleEnable) == 1);
-                container.setBackgroundColor(mAttributes.get(Attr.currentDayBackgroundColor));
+                textStyle = style.currentDayTextStyle;
+                circleEnabled = style.currentDayCircleEnable;
+                backgroundColor = style.currentDayBackgroundColor;
             }
 
-            if (isFirstFromSameMonth(day, new YMDCalendar(month)) != THIS_MONTH || day.isBefore(mMinDate))
-                container.setAlpha(0.25f);
-            else
-                container.setAlpha(1f);
+            float alpha = (flags & (FLAG_OTHER_MONTH | FLAG_BEFORE_MINIMUM_DATE)) != 0 ? 0.25f : 1f;
+
+            // Notes (calendar objects and occurrences of recurring ones, by time)
+            CalendarObjectStore.Month calendarMonth = mCalendarObjectStore.getMonth(year * 100 + month);
+            CalendarObjectStore.Month recurrenceMonth = mRecurrenceExpander.getMonth(year * 100 + month);
+            int i = calendarMonth.indexOfDay(dayOfMonth);
+            int to = calendarMonth.indexOfDay(dayOfMonth + 1);
+            int j = recurrenceMonth.indexOfDay(dayOfMonth);
+            int recurrenceTo = recurrenceMonth.indexOfDay(dayOfMonth + 1);
+            int numberOfNotes = 0;
+            while ((i < to || j < recurrenceTo) && numberOfNotes < mNoteColors.length) {
+                if (j == recurrenceTo
+                        || (i < to && calendarMonth.minutesOfDay[i] <= recurrenceMonth.minutesOfDay[j])) {
+                    mNoteColors[numberOfNotes] = calendarMonth.secondaryColors[i];
+                    mNoteBackgroundColors[numberOfNotes] = calendarMonth.primaryColors[i];
+                    i++;
+                }
+                else {
+                    mNoteColors[numberOfNotes] = recurrenceMonth.secondaryColors[j];
+                    mNoteBackgroundColors[numberOfNotes] = recurrenceMonth.primaryColors[j];
+                    j++;
+                }
+                numberOfNotes++;
+            }
 
-            if (day.isBefore(mMinDate)) {
-                container.setOnClickListener(null);
+            if (holder.monthGridView != null) {
+                MonthGridView monthGridView = holder.monthGridView;
+
+                monthGridView.setCell(position,
+                        DAY_OF_MONTH_TEXTS[dayOfMonth],
+                        textColor,
+                        textStyle,
+                        backgroundColor,
+                        frameColor,
+                        circleColor,
+                        circleEnabled,
+                        alpha);
+
+                monthGridView.clearNotes(position);
+                numberOfNotes = Math.min(numberOfNotes, monthGridView.getNumberOfNotes());
+                for (int n = 0 ; n < numberOfNotes ; n++)
+                    monthGridView.setNote(position, n, mNoteColors[n], mNoteBackgroundColors[n]);
+                return;
             }
-            else {
-                container.setOnClickListener(new OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-
-                        final YMDCalendar previousDate = mSelectedDate.clone();
-                        mSelectedDate = day;
-
-                        updateViewDay(previousDate);
-                        updateViewDay(mSelectedDate);
-
-                        int isFromThisMonth = isFirstFromSameMonth(mSelectedDate, new YMDCalendar(month));
-                        if (isFromThisMonth != THIS_MONTH) {
-                            mRunnablePage = mCurrentPage + isFromThisMonth;
-                            mViewPager.setCurrentItem(mRunnablePage, true);
-                            mRunnable = new Runnable() {
-                                @Override
-                                public void run() {
-                                    runListener(calendarObjectList,
-                                            YMDCalendar.toCalendar(previousDate),
-                                            YMDCalendar.toCalendar(day));
-                                }
-                            };
-                        } else {
-                            runListener(calendarObjectList,
-                                    YMDCalendar.toCalendar(previousDate),
-                                    YMDCalendar.toCalendar(day));
-                        }
 
-                    }
+            FrameLinearLayout container = holder.dayViews[position];
+            SelectedTextView tvDay = holder.tvDays[position];
+            MultipleTriangleView vNotes = holder.vNotes[position];
+
+            // Set Notes (each triangle set once, so unchanged ones are not redrawn)
+            for (int n = 0 ; n < vNotes.getNumberOfItems() ; n++) {
+                vNotes.setColor(n, n < numberOfNotes ? mNoteColors[n] : Color.TRANSPARENT);
+                vNotes.setTriangleBackgroundColor(n, n < numberOfNotes ? mNoteBackgroundColors[n] : Color.TRANSPARENT);
+            }
+
+            // Set day TextView
+            tvDay.setText(DAY_OF_MONTH_TEXTS[dayOfMonth]);
+            tvDay.setTextColor(textColor);
+            tvDay.setSelectedColor(circleColor);
+            tvDay.setSelectedEnabled(circleEnabled);
+            changeTypeface(tvDay, textStyle);
+            container.setFrameColor(frameColor);
+            container.setBackgroundColor(backgroundColor);
+            container.setAlpha(alpha);
+        }
+
+        private void onDayClicked(ViewHolder holder, int position) {
+            if ((holder.dayFlags[position] & FLAG_BEFORE_MINIMUM_DATE) != 0)
+                return;
+
+            final YMDCalendar day = EpochDay.toYMDCalendar(holder.days[position]);
+            final YMDCalendar previousDate = mSelectedDate.clone();
+            mSelectedDate = day;
 
-                    private void runListener(List<CalendarObject> calendarObjectList, Calendar previousDate, Calendar selectedDate) {
-                        if (mListener != null)
-                            mListener.onItemClicked(calendarObjectList, previousDate, selectedDate);
+            updateViewDay(previousDate);
+            updateViewDay(mSelectedDate);
+
+            final List<CalendarObject> calendarObjectList = getCalendarObjectsOfDay(day);
+
+            int isFromThisMonth = isFirstFromSameMonth(mSelectedDate, holder.month);
+            if (isFromThisMonth != THIS_MONTH) {
+                mRunnablePage = mCurrentPage + isFromThisMonth;
+                mViewPager.setCurrentItem(mRunnablePage, true);
+                mRunnable = new Runnable() {
+                    @Override
+                    public void run() {
+                        runListener(calendarObjectList,
+                                YMDCalendar.toCalendar(previousDate),
+                                YMDCalendar.toCalendar(day));
                     }
-                });
+                };
+            } else {
+                runListener(calendarObjectList,
+                        YMDCalendar.toCalendar(previousDate),
+                        YMDCalendar.toCalendar(day));
             }
         }
 
+        private void runListener(List<CalendarObject> calendarObjectList, Calendar previousDate, Calendar selectedDate) {
+            if (mListener != null)
+                mListener.onItemClicked(calendarObjectList, previousDate, selectedDate);
+        }
+
+        private boolean isSameDay(int day, YMDCalendar ymdCalendar) {
+            return EpochDay.dayOfMonth(day) == ymdCalendar.day
+                    && EpochDay.month(day) == ymdCalendar.month
+                    && EpochDay.year(day) == ymdCalendar.year;
+        }
+
         YMDCalendar getDateAtPosition(int position) {
-            Calendar month = (Calendar) mInitialMonth.clone();
-            month.add(Calendar.MONTH, position - mInitialPage);
-            return new YMDCalendar(month);
+            int monthIndex = getMonthIndexAtPosition(position);
+            return new YMDCalendar(1,
+                    EpochDay.monthOfMonthIndex(monthIndex),
+                    EpochDay.yearOfMonthIndex(monthIndex));
+        }
+
+        private int getMonthIndexAtPosition(int position) {
+            return mInitialMonthIndex + position - mInitialPage;
         }
 
-        private int isFirstFromSameMonth(YMDCalendar ymdCalendarFirst, YMDCalendar ymdCalendar) {
-            int h1 = getDateCode(ymdCalendarFirst, 1);
-            int h2 = getDateCode(ymdCalendar, 1);
+        private int getPositionOfMonthIndex(int monthIndex) {
+            return mInitialPage + monthIndex - mInitialMonthIndex;
+        }
+
+        private int isFirstFromSameMonth(YMDCalendar ymdCalendarFirst, int monthIndex) {
+            int h1 = getMonthIndex(ymdCalendarFirst);
+            int h2 = monthIndex;
             if (h1 == h2)
                 return THIS_MONTH;
             else if (h1 > h2)
@@ -681,152 +1352,179 @@ public class CalendarView extends FrameLayout {
 
         private void updateViewDay(YMDCalendar day) {
             // Set 'Month'
-            Calendar month = YMDCalendar.toCalendar(day);
-            month.set(Calendar.DAY_OF_MONTH, 1);
-
-            // Set List of Calendar Events of the
-            List<CalendarObject> objectList = getCalendarObjectsOfDay(day);
+            int month = getMonthIndex(day);
+            int epochDay = EpochDay.of(day);
+            invalidateSnapshots(month);
 
             // 'onBindView' of current month
-            updateViewDayOfMonth(month, day, objectList);
+            updateViewDayOfMonth(month, epochDay);
 
             // 'onBindView' of ivPrevious month
-            Calendar previousMonth = (Calendar) month.clone();
-            previousMonth.add(Calendar.MONTH, -1);
-            updateViewDayOfMonth(previousMonth, day, objectList);
+            updateViewDayOfMonth(month - 1, epochDay);
 
             // 'onBindView' of ivNext month
-            Calendar nextMonth = (Calendar) month.clone();
-            nextMonth.add(Calendar.MONTH, 1);
-            updateViewDayOfMonth(nextMonth, day, objectList);
+            updateViewDayOfMonth(month + 1, epochDay);
         }
 
-        private void updateViewDayOfMonth(Calendar month, YMDCalendar day, List<CalendarObject> eventList) {
-            View monthView = mInstantiatedMonthViewList.get(getDateCode(month, 1));
-            if (monthView != null) {
-                // Find position
-                int position = getDayViewPositionInMonthView(month, day);
+        private void updateViewDays(SortedIntSet days) {
+            int lastMonth = NO_MONTH;
+            for (int d = 0 ; d < days.size() ; d++) {
+                int epochDay = days.get(d);
+                int month = EpochDay.monthIndex(EpochDay.year(epochDay), EpochDay.month(epochDay));
+                if (month != lastMonth)
+                    invalidateSnapshots(month);
+                lastMonth = month;
+            }
 
-                if (position != -1) {
-                    View dayView = getDayView(monthView, position);
-                    onBindView(position, month, day, eventList, dayView);
-                }
+            for (int m = 0 ; m < mInstantiatedMonthViewList.size() ; m++) {
+                ViewHolder holder = mInstantiatedMonthViewList.valueAt(m);
+                for (int i = 0 ; i < NUMBER_OF_DAYS ; i++)
+                    if (days.contains(holder.days[i]))
+                        onBindView(holder, i);
             }
         }
 
-        private List<YMDCalendar> getDayList(Calendar mMonth) {
-
-            Calendar month = (Calendar) mMonth.clone();
-            month.set(Calendar.DAY_OF_MONTH, 1);
-
-            // Find month startExercise day of the week. ie; sun, mon, etc (day 1 and day 15 are same day of the week)
-            int firstWeekDayOfMonth = month.get(Calendar.DAY_OF_WEEK);
-
-            // Adjust for Start WeekDay of Calendar
-            firstWeekDayOfMonth = firstWeekDayOfMonth - mAttributes.get(Attr.startingWeekDay);
-            firstWeekDayOfMonth = (firstWeekDayOfMonth + 6)%7 + 1;
-
-            // Previous month maximum day
-            Calendar prevMonth = (Calendar) month.clone();
-            prevMonth.add(Calendar.MONTH, -1);
-            int maximumDayOfPreviousMonth
-                    = prevMonth.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-            // Previous month offset days in order to fill first week
-            int firstDayOfPreviousMonthToDisplayInCalendar
-                    = maximumDayOfPreviousMonth - (firstWeekDayOfMonth - 1);
-
-            // Setting the first date as ivPrevious month's required date.
-            prevMonth.set(Calendar.DAY_OF_MONTH, firstDayOfPreviousMonthToDisplayInCalendar);
-
-            // Filling Calendar GridView.
-            int n = 1;
-            List<YMDCalendar> daysList = new ArrayList<>();
-            while (n <= NUMBER_OF_DAYS ) {
-                daysList.add(new YMDCalendar(prevMonth));
-
-                // Next day
-                prevMonth.add(Calendar.DAY_OF_MONTH, 1);
-                n++;
+        /**
+         * Rebind the day cells of the given month in all live pages
+         */
+        private void updateViewMonth(int month) {
+            int firstDay = EpochDay.of(EpochDay.yearOfMonthIndex(month), EpochDay.monthOfMonthIndex(month), 1);
+            int lastDay = firstDay + EpochDay.lengthOfMonth(
+                    EpochDay.yearOfMonthIndex(month), EpochDay.monthOfMonthIndex(month)) - 1;
+            invalidateSnapshots(month);
+
+            for (int m = 0 ; m < mInstantiatedMonthViewList.size() ; m++) {
+                ViewHolder holder = mInstantiatedMonthViewList.valueAt(m);
+                for (int i = 0 ; i < NUMBER_OF_DAYS ; i++)
+                    if (holder.days[i] >= firstDay && holder.days[i] <= lastDay)
+                        onBindView(holder, i);
             }
-            return daysList;
         }
 
-        private int getDayViewPositionInMonthView(Calendar month, YMDCalendar day) {
-            List<YMDCalendar> dayList = getDayList(month);
-            int position = -1;
-            for (int i = 0 ; i < dayList.size() ; i++)
-                if (getDateCode(dayList.get(i), 2) == getDateCode(day, 2)) {
-                    position = i;
-                    break;
-                }
-            return position;
-        }
-
-        private View getDayView(View monthView, int position) {
-            int it = 0;
-            /*for (int row : rows)
-                for (int column : columns) {
-                    if (it == position)
-                        return monthView.findViewById(row).findViewById(column);
-                    it++;
-                }/**/
-
-            for (int id : dayViewIDs) {
-                if (it == position)
-                    return monthView.findViewById(id);
-                it++;
+        /**
+         * Rebind the bars of objects that span several days in all live pages
+         */
+        private void updateViewSpans() {
+            // Bars may cross any month; the live pages are up to date again after this
+            mMonthSnapshotCache.invalidateAll();
+            for (int m = 0 ; m < mInstantiatedMonthViewList.size() ; m++) {
+                ViewHolder holder = mInstantiatedMonthViewList.valueAt(m);
+                bindSpans(holder);
+                holder.version = mMonthSnapshotCache.getVersion();
             }
-
-            return null;
         }
 
-        private List<View> getDayViewList(View monthView) {
-            List<View> dayViewList = new ArrayList<>();
-
-            for (int id : dayViewIDs)
-                    dayViewList.add(monthView.findViewById(id));
-
-            return dayViewList;
+        /**
+         * Mark the snapshots of the pages that show days of the given month as out of
+         * date (the grid of a page also shows days of the previous and next months)
+         */
+        private void invalidateSnapshots(int month) {
+            mMonthSnapshotCache.invalidateMonth(month - 1);
+            mMonthSnapshotCache.invalidateMonth(month);
+            mMonthSnapshotCache.invalidateMonth(month + 1);
         }
 
-        private SparseArray<List<CalendarObject>> getCalendarObjectsOfMonthByDay(Calendar month) {
-            List<CalendarObject> objectList = new ArrayList<>();
+        private void bindSpans(ViewHolder holder) {
+            SpanBars spanBars = holder.spanBars;
+            if (spanBars == null)
+                return;
 
-            Calendar c = Calendar.getInstance();
-            c.setTime(month.getTime());
-            objectList.addAll(mObjectsByMonthMap.get(getDateCode(c, 1), new ArrayList<CalendarObject>()));
+            boolean wasEmpty = spanBars.isEmpty();
+            spanBars.clear();
+
+            int firstDay = holder.days[0];
+            int lastDay = holder.days[NUMBER_OF_DAYS - 1];
+            int count = mRangeIndex.isEmpty() ? 0 : mRangeIndex.query(firstDay, lastDay);
+
+            // Ranges come sorted by start, so each goes to the first lane that is free by then
+            Arrays.fill(mLaneEndDays, Integer.MIN_VALUE);
+            for (int r = 0 ; r < count ; r++) {
+                int index = mRangeIndex.getResult(r);
+                int startDay = mRangeIndex.getStartDay(index);
+                int endDay = mRangeIndex.getEndDay(index);
+
+                int lane = 0;
+                while (lane < SpanBars.MAX_LANES && mLaneEndDays[lane] >= startDay)
+                    lane++;
+                if (lane == SpanBars.MAX_LANES)
+                    continue;
+                mLaneEndDays[lane] = endDay;
+
+                // One segment per week row
+                int from = Math.max(startDay, firstDay) - firstDay;
+                int to = Math.min(endDay, lastDay) - firstDay;
+                for (int row = from / 7 ; row <= to / 7 ; row++) {
+                    int start = Math.max(from, row * 7);
+                    int end = Math.min(to, row * 7 + 6);
+                    spanBars.add(row, start % 7, end % 7, lane,
+                            mRangeIndex.getPrimaryColor(index),
+                            firstDay + start == startDay,
+                            firstDay + end == endDay);
+                }
+            }
 
-            c.add(Calendar.MONTH, 1);
-            objectList.addAll(mObjectsByMonthMap.get(getDateCode(c, 1), new ArrayList<CalendarObject>()));
+            if (!wasEmpty || !spanBars.isEmpty())
+                holder.spanBarsView.invalidate();
+        }
 
-            c.add(Calendar.MONTH, -2);
-            objectList.addAll(mObjectsByMonthMap.get(getDateCode(c, 1), new ArrayList<CalendarObject>()));
+        private void updateViewDayOfMonth(int month, int epochDay) {
+            ViewHolder holder = mInstantiatedMonthViewList.get(month);
+            if (holder != null) {
+                // Find position (the grid is made of consecutive days)
+                int position = epochDay - holder.days[0];
 
-            SparseArray<List<CalendarObject>> mObjectByDayMap = new SparseArray<>();
-            for (CalendarObject object : objectList) {
-                int dateCode = getDateCode(object.getDatetime(), 2);
-                if (mObjectByDayMap.get(dateCode) != null) {
-                    mObjectByDayMap.get(dateCode).add(object);
-                } else {
-                    mObjectByDayMap.put(dateCode, new ArrayList<CalendarObject>());
-                    mObjectByDayMap.get(dateCode).add(object);
+                if (position >= 0 && position < NUMBER_OF_DAYS) {
+                    onBindView(holder, position);
                 }
             }
-            return mObjectByDayMap;
+        }
+
+        private int getFirstDayOfGrid(int month) {
+            return EpochDay.firstDayOfGrid(
+                    EpochDay.yearOfMonthIndex(month),
+                    EpochDay.monthOfMonthIndex(month),
+                    mStyle.startingWeekDay);
         }
 
         private List<CalendarObject> getCalendarObjectsOfDay(YMDCalendar calendar) {
-            List<CalendarObject> eventList = new ArrayList<>();
+            List<CalendarObject> calendarObjectList = mCalendarObjectStore.getDay(calendar);
+            int day = EpochDay.of(calendar);
+
+            // Add the objects that span several days and the occurrences of recurring
+            // objects, keeping the list sorted by the time they start on this day
+            if (!mRangeIndex.isEmpty()) {
+                int count = mRangeIndex.query(day, day);
+                for (int r = 0 ; r < count ; r++) {
+                    CalendarObject calendarObject = mRangeIndex.get(mRangeIndex.getResult(r));
+                    addByMinuteOfDay(calendarObjectList, day, calendarObject, getMinuteOfDay(calendarObject, day));
+                }
+            }
 
-            List<CalendarObject> tmpObjectList =
-                    mObjectsByMonthMap.get(getDateCode(calendar, 1), new ArrayList<CalendarObject>());
+            CalendarObjectStore.Month recurrenceMonth = mRecurrenceExpander.getMonth(getDateCode(calendar, 1));
+            int from = recurrenceMonth.indexOfDay(calendar.day);
+            int to = recurrenceMonth.indexOfDay(calendar.day + 1);
+            for (int j = from ; j < to ; j++)
+                addByMinuteOfDay(calendarObjectList, day, recurrenceMonth.get(j), recurrenceMonth.minutesOfDay[j]);
+            return calendarObjectList;
+        }
 
-            for (CalendarObject e : tmpObjectList)
-                if (getDateCode(e.getDatetime(), 2) == getDateCode(calendar, 2))
-                    eventList.add(e);
+        /**
+         * Insert the object after the objects that start on the given day at the same
+         * minute or earlier
+         */
+        private void addByMinuteOfDay(List<CalendarObject> calendarObjectList, int day,
+                                      CalendarObject calendarObject, int minuteOfDay) {
+            int i = calendarObjectList.size();
+            while (i > 0 && getMinuteOfDay(calendarObjectList.get(i - 1), day) > minuteOfDay)
+                i--;
+            calendarObjectList.add(i, calendarObject);
+        }
 
-            return eventList;
+        /**
+         * @return the minute the object starts at on the given day (0 if it started on an earlier day)
+         */
+        private int getMinuteOfDay(CalendarObject calendarObject, int day) {
+            return calendarObject.getEpochDay() < day ? 0 : calendarObject.getMinuteOfDay();
         }
 
         int getInitialPosition() {
@@ -836,6 +1534,7 @@ public class CalendarView extends FrameLayout {
         void pageCurrentlyBeingCompletelyShown(int position) {
             mCurrentPage = position;
             setMonthArrows(mCurrentPage);
+            mMonthDataLoader.loadVisible(getMonthIndexAtPosition(mCurrentPage));
 
             if (mRunnable != null && mCurrentPage == mRunnablePage) {
                 mHandler.post(mRunnable);
@@ -857,12 +1556,9 @@ public class CalendarView extends FrameLayout {
             updateViewDay(previousDate);
             updateViewDay(mSelectedDate);
 
-            int year = mMinDate.year + mCurrentPage / 12;
-            int month = mCurrentPage %12 - mMinDate.month;
-
-            int isFromThisMonth = isFirstFromSameMonth(mSelectedDate, new YMDCalendar(10, month, year));
+            int isFromThisMonth = isFirstFromSameMonth(mSelectedDate, getMonthIndexAtPosition(mCurrentPage));
             if (isFromThisMonth != THIS_MONTH) {
-                mViewPager.setCurrentItem(mInitialPage, false);
+                mViewPager.setCurrentItem(getPositionOfMonthIndex(getMonthIndex(mSelectedDate)), false);
             }
         }
 
@@ -874,21 +1570,123 @@ public class CalendarView extends FrameLayout {
             updateViewDay(mCurrentDate);
         }
 
-        private class ViewHolder {
-            public final int position;
+        /**
+         * Month page, with the views of its 42 day cells looked up once at inflate
+         * time and the day shown by each cell kept in primitive arrays, so that
+         * (re)binding a page does not allocate.
+         */
+        private class ViewHolder implements OnClickListener, MonthGridView.OnCellClickListener, Runnable {
+            public int position;
             public final View container;
+            public final View calendarContainer;
+
+            /**
+             * Set (instead of the cell views) when the page is drawn by a MonthGridView
+             */
+            final MonthGridView monthGridView;
+
+            final FrameLinearLayout[] dayViews = new FrameLinearLayout[NUMBER_OF_DAYS];
+            final SelectedTextView[] tvDays = new SelectedTextView[NUMBER_OF_DAYS];
+            final MultipleTriangleView[] vNotes = new MultipleTriangleView[NUMBER_OF_DAYS];
+
+            /**
+             * Bars of the objects that span several days, and the view that draws them
+             */
+            final SpanBars spanBars;
+            final View spanBarsView;
+
+            /**
+             * Epoch day and flags (FLAG_*) of each cell
+             */
+            final int[] days = new int[NUMBER_OF_DAYS];
+            final int[] dayFlags = new int[NUMBER_OF_DAYS];
+
+            /**
+             * Month (year * 12 + month) shown in this page
+             */
+            int month;
+
+            /**
+             * Snapshot shown until the page is bound, and the month to bind then (or NO_MONTH)
+             */
+            final ImageView snapshotView;
+            Bitmap snapshot;
+            int pendingMonth = NO_MONTH;
+
+            /**
+             * Version of the snapshot cache the page was last fully bound at
+             */
+            int version;
 
             public ViewHolder(int position, View container) {
                 this.position = position;
                 this.container = container;
+                this.calendarContainer = container.findViewById(R.id.ll_calendar_container);
+                this.snapshotView = container.findViewById(R.id.iv_snapshot);
+
+                if (calendarContainer instanceof MonthGridView) {
+                    monthGridView = (MonthGridView) calendarContainer;
+                    monthGridView.setOnCellClickListener(this);
+                    spanBars = monthGridView.getSpanBars();
+                    spanBarsView = monthGridView;
+                    return;
+                }
+                monthGridView = null;
+
+                SpanBarsView vSpanBars = container.findViewById(R.id.v_span_bars);
+                spanBars = vSpanBars == null ? null : vSpanBars.getSpanBars();
+                spanBarsView = vSpanBars;
+
+                for (int i = 0 ; i < NUMBER_OF_DAYS ; i++) {
+                    dayViews[i] = container.findViewById(dayViewIDs[i]);
+                    tvDays[i] = dayViews[i].findViewById(R.id.tv_calendar_day);
+                    vNotes[i] = dayViews[i].findViewById(R.id.v_notes);
+                    dayViews[i].setTag(i);
+                    dayViews[i].setOnClickListener(this);
+                }
+            }
+
+            /**
+             * Clear what a recycled page kept from its previous use: the layout params
+             * the ViewPager filled in (its position and width there, which it would
+             * otherwise not update) and the pressed state of the day cells
+             */
+            void reset() {
+                container.setLayoutParams(new ViewPager.LayoutParams());
+                for (FrameLinearLayout dayView : dayViews)
+                    if (dayView != null)
+                        dayView.setPressed(false);
+                container.jumpDrawablesToCurrentState();
+            }
+
+            @Override
+            public void onClick(View v) {
+                onDayClicked(this, (Integer) v.getTag());
+            }
+
+            @Override
+            public void onCellClick(MonthGridView view, int position) {
+                onDayClicked(this, position);
+            }
+
+            @Override
+            public void run() {
+                bindPendingPage(this);
             }
         }
     }
 
+    /**
+     * Note shown in a day of the calendar. Unless setKeepCalendarObjects is enabled,
+     * the calendar does not keep CalendarObjects: their values are copied into its
+     * store, and the CalendarObjects it hands out are created from those values (with
+     * the datetimes built only when asked for, to the minute).
+     */
     public static class CalendarObject {
 
         private String mID;
         private Calendar mDatetime;
+        private Calendar mEndDatetime;
         private int mPrimaryColor;
         private int mSecondaryColor;
 
@@ -899,6 +1697,16 @@ public class CalendarView extends FrameLayout {
             mSecondaryColor = secondaryColor;
         }
 
+        /**
+         * Calendar object that spans from 'startDatetime' to 'endDatetime'. If both are
+         * on the same day, it is shown as any other object; otherwise it is shown as a
+         * bar across the days.
+         */
+        public CalendarObject(String id, Calendar startDatetime, Calendar endDatetime, int primaryColor, int secondaryColor) {
+            this(id, startDatetime, primaryColor, secondaryColor);
+            mEndDatetime = endDatetime;
+        }
+
         public String getID() {
             return mID;
         }
@@ -907,6 +1715,52 @@ public class CalendarView extends FrameLayout {
             return mDatetime;
         }
 
+        /**
+         * @return the end of objects that span several days, or null
+         */
+        public Calendar getEndDatetime() {
+            return mEndDatetime;
+        }
+
+        /**
+         * Datetimes as epoch day and minute of the day, read from the Calendars (which
+         * must not be changed once the object is given to the calendar)
+         */
+        int getEpochDay() {
+            return toEpochDay(getDatetime());
+        }
+
+        int getMinuteOfDay() {
+            return toMinuteOfDay(getDatetime());
+        }
+
+        int getEndEpochDay() {
+            return hasEnd() ? toEpochDay(getEndDatetime()) : getEpochDay();
+        }
+
+        int getEndMinuteOfDay() {
+            return hasEnd() ? toMinuteOfDay(getEndDatetime()) : getMinuteOfDay();
+        }
+
+        boolean hasEnd() {
+            return mEndDatetime != null;
+        }
+
+        boolean isMultiDay() {
+            return hasEnd() && getEndEpochDay() > getEpochDay();
+        }
+
+        private static int toEpochDay(Calendar calendar) {
+            return EpochDay.of(
+                    calendar.get(Calendar.YEAR),
+                    calendar.get(Calendar.MONTH),
+                    calendar.get(Calendar.DAY_OF_MONTH));
+        }
+
+        private static int toMinuteOfDay(Calendar calendar) {
+            return calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+        }
+
         public int getPrimaryColor() {
             return mPrimaryColor;
         }
@@ -916,6 +1770,149 @@ public class CalendarView extends FrameLayout {
         }
     }
 
+    /**
+     * Changes to the calendar objects applied together on commit. Removals (including
+     * the old version of updated objects) are applied before additions. A BatchEditor
+     * must only be used by one thread at a time.
+     */
+    public class BatchEditor {
+
+        private final List<CalendarObject> mAddedList = new ArrayList<>();
+        private final List<String> mRemovedIDList = new ArrayList<>();
+
+        private BatchEditor() { }
+
+        public BatchEditor add(CalendarObject calendarObject) {
+            mAddedList.add(calendarObject);
+            return this;
+        }
+
+        public BatchEditor addAll(List<CalendarObject> calendarObjectList) {
+            mAddedList.addAll(calendarObjectList);
+            return this;
+        }
+
+        /**
+         * Remove the object with the same ID (wherever it is, even if its datetime changed)
+         */
+        public BatchEditor remove(CalendarObject calendarObject) {
+            return removeByID(calendarObject.getID());
+        }
+
+        public BatchEditor removeByID(String id) {
+            mRemovedIDList.add(id);
+            return this;
+        }
+
+        /**
+         * Replace the object with the same ID (wherever it is) with the given one,
+         * eg. to move it to another datetime
+         */
+        public BatchEditor update(CalendarObject calendarObject) {
+            mRemovedIDList.add(calendarObject.getID());
+            mAddedList.add(calendarObject);
+            return this;
+        }
+
+        /**
+         * Apply the changes. On the main thread they are applied at once, after the
+         * lists posted and the batches committed before from other threads. On any
+         * other thread they are applied on the next frame, in the order committed
+         * (relative to the lists posted and the other batches).
+         */
+        public void commit() {
+            List<CalendarObject> addedList = new ArrayList<>(mAddedList);
+            List<String> removedIDList = new ArrayList<>(mRemovedIDList);
+            mAddedList.clear();
+            mRemovedIDList.clear();
+
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                applyPendingUpdates();
+                applyBatch(addedList, removedIDList);
+            }
+            else {
+                postUpdate(new PendingUpdate(null, addedList, removedIDList));
+            }
+        }
+    }
+
+    /**
+     * A posted list (indexed into a snapshot) or a committed batch, waiting to be
+     * applied on the main thread
+     */
+    private static class PendingUpdate {
+        final CalendarObjectSnapshot snapshot;
+        final List<CalendarObject> addedList;
+        final List<String> removedIDList;
+
+        PendingUpdate(CalendarObjectSnapshot snapshot, List<CalendarObject> addedList, List<String> removedIDList) {
+            this.snapshot = snapshot;
+            this.addedList = addedList;
+            this.removedIDList = removedIDList;
+        }
+    }
+
+    /**
+     * Counters of the months loaded from the MonthDataSource
+     */
+    public static class MonthCacheStats {
+
+        int hitCount;
+        int missCount;
+        int evictionCount;
+        int errorCount;
+        int loadedMonthCount;
+        int loadedObjectCount;
+
+        /**
+         * @return the number of month requests served by an already loaded month
+         */
+        public int getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return the number of month requests that started a load
+         */
+        public int getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return the number of months dropped to stay within the budget
+         */
+        public int getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * @return the number of month loads that threw (the months are requested again when shown)
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public int getLoadedMonthCount() {
+            return loadedMonthCount;
+        }
+
+        public int getLoadedObjectCount() {
+            return loadedObjectCount;
+        }
+
+        @Override
+        public String toString() {
+            return "MonthCacheStats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", errorCount=" + errorCount +
+                    ", loadedMonthCount=" + loadedMonthCount +
+                    ", loadedObjectCount=" + loadedObjectCount +
+                    '}';
+        }
+    }
+
     public static class CalendarViewPager extends ViewPager {
 
         @SuppressWarnings("unused") private final String TAG = getClass().getSimpleName();
@@ -1087,10 +2084,16 @@ public class CalendarView extends FrameLayout {
             return this;
         }
 
+        public Builder setRenderMode(int renderMode) {
+            P.renderMode = renderMode;
+            return this;
+        }
+
         public CalendarView create() {
             CalendarView calendarView = new CalendarView(P.mContext);
 
             P.apply(calendarView.mAttributes);
+            calendarView.mStyle = new Style(calendarView.mAttributes);
 
             calendarView.setOnItemClickedListener(P.onItemClickListener);
             calendarView.setCalendarObjectList(P.calendarObjectList);
@@ -1114,6 +2117,7 @@ public class CalendarView extends FrameLayout {
         int dayItemTextColor;
         int monthHeaderTextColor;
         int monthArrowsColor;
+        int renderMode = RENDER_MODE_VIEWS;
 
         CalenderViewParams(Context context) {
             mContext = context;
@@ -1130,10 +2134,25 @@ public class CalendarView extends FrameLayout {
             attributes.put(Attr.dayTextColor, dayItemTextColor);
             attributes.put(Attr.monthHeaderTextColor, monthHeaderTextColor);
             attributes.put(Attr.monthHeaderArrowsColor, monthArrowsColor);
+            attributes.put(Attr.renderMode, renderMode);
 
         }
     }
 
+    /**
+     * Source of the calendar objects of a month, for calendars with a long history
+     * that should not be set all at once
+     */
+    public interface MonthDataSource {
+        /**
+         * Called on a background thread.
+         *
+         * @param month 0-based, as in java.util.Calendar
+         * @return the calendar objects of the month
+         */
+        List<CalendarObject> loadMonth(int year, int month);
+    }
+
     public interface OnItemClickListener {
         void onItemClicked(List<CalendarObject> calendarObjects, Calendar previousDate, Calendar selectedDate);
     }
@@ -1142,6 +2161,91 @@ public class CalendarView extends FrameLayout {
         void onMonthChanged(int month, int year);
     }
 
+    /**
+     * Immutable snapshot of the attributes, with the flags of each cell of the
+     * month grid that only depend on its column
+     */
+    private static class Style {
+
+        final int dayOffset;
+        final int startingWeekDay;
+        final int renderMode;
+
+        final int monthHeaderBackgroundColor;
+        final int monthHeaderTextColor;
+        final int monthHeaderArrowsColor;
+        final boolean monthHeaderShow;
+
+        final int weekHeaderBackgroundColor;
+        final int weekHeaderTextColor;
+        final int weekHeaderOffsetDayBackgroundColor;
+        final int weekHeaderOffsetDayTextColor;
+        final boolean weekHeaderMovable;
+
+        final int contentBackgroundColor;
+
+        final int dayTextColor;
+        final int dayBackgroundColor;
+
+        final int currentDayTextColor;
+        final int currentDayTextStyle;
+        final int currentDayBackgroundColor;
+        final boolean currentDayCircleEnable;
+        final int currentDayCircleColor;
+
+        final int offsetDayTextColor;
+        final int offsetDayBackgroundColor;
+
+        final int selectedDayTextColor;
+        final int selectedDayBackgroundColor;
+        final int selectedDayBorderColor;
+
+        /**
+         * Column of the offset day (sundays or mondays) in the grid
+         */
+        final int offsetColumn;
+        final int[] cellFlags = new int[MonthGridView.NUMBER_OF_COLUMNS * MonthGridView.NUMBER_OF_ROWS];
+
+        Style(SparseIntArray attributes) {
+            dayOffset = attributes.get(Attr.dayOffset);
+            startingWeekDay = attributes.get(Attr.startingWeekDay);
+            renderMode = attributes.get(Attr.renderMode);
+
+            monthHeaderBackgroundColor = attributes.get(Attr.monthHeaderBackgroundColor);
+            monthHeaderTextColor = attributes.get(Attr.monthHeaderTextColor);
+            monthHeaderArrowsColor = attributes.get(Attr.monthHeaderArrowsColor);
+            monthHeaderShow = attributes.get(Attr.monthHeaderShow) == 1;
+
+            weekHeaderBackgroundColor = attributes.get(Attr.weekHeaderBackgroundColor);
+            weekHeaderTextColor = attributes.get(Attr.weekHeaderTextColor);
+            weekHeaderOffsetDayBackgroundColor = attributes.get(Attr.weekHeaderOffsetDayBackgroundColor);
+            weekHeaderOffsetDayTextColor = attributes.get(Attr.weekHeaderOffsetDayTextColor);
+            weekHeaderMovable = attributes.get(Attr.weekHeaderMovable) == 1;
+
+            contentBackgroundColor = attributes.get(Attr.contentBackgroundColor);
+
+            dayTextColor = attributes.get(Attr.dayTextColor);
+            dayBackgroundColor = attributes.get(Attr.dayBackgroundColor);
+
+            currentDayTextColor = attributes.get(Attr.currentDayTextColor);
+            currentDayTextStyle = attributes.get(Attr.currentDayTextStyle);
+            currentDayBackgroundColor = attributes.get(Attr.currentDayBackgroundColor);
+            currentDayCircleEnable = attributes.get(Attr.currentDayCircleEnable) == 1;
+            currentDayCircleColor = attributes.get(Attr.currentDayCircleColor);
+
+            offsetDayTextColor = attributes.get(Attr.offsetDayTextColor);
+            offsetDayBackgroundColor = attributes.get(Attr.offsetDayBackgroundColor);
+
+            selectedDayTextColor = attributes.get(Attr.selectedDayTextColor);
+            selectedDayBackgroundColor = attributes.get(Attr.selectedDayBackgroundColor);
+            selectedDayBorderColor = attributes.get(Attr.selectedDayBorderColor);
+
+            offsetColumn = (7 + dayOffset - startingWeekDay) % 7;
+            for (int i = offsetColumn ; i < cellFlags.length ; i += 7)
+                cellFlags[i] |= CalendarPagerAdapter.FLAG_OFFSET_DAY;
+        }
+    }
+
     private static class Attr {
         static final int dayOffset = 1;
         static final int startingWeekDay = 2;
@@ -1157,6 +2261,8 @@ public class CalendarView extends FrameLayout {
         static final int weekHeaderOffsetDayTextColor = 21;
         static final int weekHeaderMovable = 24;
 
+        static final int renderMode = 25;
+
         static final int contentBackgroundColor = 4;
 
         static final int dayTextColor = 5;
@@ -0,0 +1,283 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.CalendarView.MonthCacheStats;
+import org.hugoandrade.calendarviewlib.CalendarView.MonthDataSource;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the Calendar Objects of a month from a MonthDataSource on a background
+ * executor and publishes them to the CalendarObjectStore on the main thread,
+ * where they are marked as loaded: evicting a month removes only the objects
+ * loaded for it, never the ones the app added.
+ * The loaded months are kept in an LRU bounded by a number of months and
+ * a number of objects, so only the objects of the most recently used
+ * months stay in the store. The visible month and its neighbours are
+ * pinned (never evicted); evicted months are loaded again when revisited.
+ */
+class MonthDataLoader {
+
+    private static final String TAG = MonthDataLoader.class.getSimpleName();
+
+    static final int DEFAULT_MAX_LOADED_MONTHS = 12;
+    static final int DEFAULT_MAX_LOADED_OBJECTS = 10000;
+    static final int PINNED_MONTHS_DISTANCE = 1;
+    static final int DEFAULT_PREFETCH_DISTANCE = 1;
+
+    interface OnMonthLoadedListener {
+        void onMonthLoaded(int monthIndex);
+
+        /**
+         * Called when the objects of a loaded month are removed from the store
+         * (evicted, or the data source changed)
+         */
+        void onMonthRemoved(int monthIndex);
+    }
+
+    private final CalendarObjectStore mCalendarObjectStore;
+    private final OnMonthLoadedListener mListener;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private MonthDataSource mDataSource;
+    private Executor mExecutor;
+
+    /**
+     * Executor of the data sources set without one, created once and reused
+     */
+    private Executor mDefaultExecutor;
+
+    /**
+     * Incremented every time the data source changes, so results of older loads are dropped
+     */
+    private int mGeneration;
+
+    /**
+     * Months (by month index) being loaded
+     */
+    private final SparseBooleanArray mLoadingMonths = new SparseBooleanArray();
+
+    /**
+     * Number of objects of each month (by month index) loaded into the store, in access order
+     */
+    private final LinkedHashMap<Integer, Integer> mLoadedMonths = new LinkedHashMap<>(16, 0.75f, true);
+    private int mLoadedObjects;
+    private int mMaxLoadedMonths = DEFAULT_MAX_LOADED_MONTHS;
+    private int mMaxLoadedObjects = DEFAULT_MAX_LOADED_OBJECTS;
+
+    /**
+     * Month index of the visible month (Integer.MIN_VALUE if unknown)
+     */
+    private int mVisibleMonth = Integer.MIN_VALUE;
+
+    private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+
+    private final MonthCacheStats mStats = new MonthCacheStats();
+
+    MonthDataLoader(CalendarObjectStore calendarObjectStore, OnMonthLoadedListener listener) {
+        mCalendarObjectStore = calendarObjectStore;
+        mListener = listener;
+    }
+
+    void setDataSource(MonthDataSource dataSource, Executor executor) {
+        mGeneration++;
+        mLoadingMonths.clear();
+        for (Integer monthIndex : mLoadedMonths.keySet()) {
+            mCalendarObjectStore.removeLoadedMonth(getMonthDateCode(monthIndex));
+            mListener.onMonthRemoved(monthIndex);
+        }
+        mLoadedMonths.clear();
+        mLoadedObjects = 0;
+        updateStats();
+
+        mDataSource = dataSource;
+        mExecutor = dataSource == null ? null : (executor == null ? getDefaultExecutor() : executor);
+    }
+
+    private Executor getDefaultExecutor() {
+        if (mDefaultExecutor == null) {
+            // Daemon, so a pending load never keeps the process alive
+            mDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mDefaultExecutor;
+    }
+
+    /**
+     * Forget the loaded months after the store was diffed with or replaced by other
+     * objects (which dropped the loaded ones), and load the visible months again
+     */
+    void invalidateLoadedMonths() {
+        if (mLoadedMonths.isEmpty() && mLoadingMonths.size() == 0)
+            return;
+
+        // Loads in flight were requested for the old contents of the store
+        mGeneration++;
+        mLoadingMonths.clear();
+        mLoadedMonths.clear();
+        mLoadedObjects = 0;
+        updateStats();
+
+        if (mVisibleMonth != Integer.MIN_VALUE)
+            load(mVisibleMonth);
+    }
+
+    boolean hasDataSource() {
+        return mDataSource != null;
+    }
+
+    void setPrefetchDistance(int prefetchDistance) {
+        mPrefetchDistance = prefetchDistance;
+    }
+
+    void setMaxLoadedMonths(int maxLoadedMonths) {
+        mMaxLoadedMonths = maxLoadedMonths;
+        trim();
+    }
+
+    void setMaxLoadedObjects(int maxLoadedObjects) {
+        mMaxLoadedObjects = maxLoadedObjects;
+        trim();
+    }
+
+    MonthCacheStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Pin the given month and its neighbours, and load the months around it
+     */
+    void loadVisible(int monthIndex) {
+        mVisibleMonth = monthIndex;
+        load(monthIndex);
+        trim();
+    }
+
+    /**
+     * Load the given month and the months around it (up to the prefetch distance)
+     */
+    void load(int monthIndex) {
+        if (mDataSource == null)
+            return;
+
+        request(monthIndex);
+        for (int i = 1 ; i <= mPrefetchDistance ; i++) {
+            request(monthIndex - i);
+            request(monthIndex + i);
+        }
+    }
+
+    private void request(final int monthIndex) {
+        // (also marks the month as recently used)
+        if (mLoadedMonths.get(monthIndex) != null) {
+            mStats.hitCount++;
+            return;
+        }
+        if (mLoadingMonths.get(monthIndex))
+            return;
+        mLoadingMonths.put(monthIndex, true);
+        mStats.missCount++;
+
+        final MonthDataSource dataSource = mDataSource;
+        final int generation = mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<CalendarObject> calendarObjectList = null;
+                try {
+                    calendarObjectList = dataSource.loadMonth(
+                            EpochDay.yearOfMonthIndex(monthIndex),
+                            EpochDay.monthOfMonthIndex(monthIndex));
+                }
+                catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to load month " + getMonthDateCode(monthIndex), e);
+                }
+                finally {
+                    // Always posted, so the month is never left marked as loading
+                    final List<CalendarObject> result = calendarObjectList;
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onMonthLoaded(generation, monthIndex, result);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * @param calendarObjectList null if the load failed
+     */
+    private void onMonthLoaded(int generation, int monthIndex, List<CalendarObject> calendarObjectList) {
+        if (generation != mGeneration)
+            return;
+        mLoadingMonths.delete(monthIndex);
+
+        if (calendarObjectList == null) {
+            // Not marked as loaded, so it is requested again the next time it is shown
+            mStats.errorCount++;
+            return;
+        }
+
+        int size = mCalendarObjectStore.setLoadedMonth(getMonthDateCode(monthIndex), calendarObjectList);
+        Integer previousSize = mLoadedMonths.put(monthIndex, size);
+        mLoadedObjects += size - (previousSize == null ? 0 : previousSize);
+        trim();
+
+        mListener.onMonthLoaded(monthIndex);
+    }
+
+    /**
+     * Evict the least recently used months (that are not pinned) until the
+     * loaded months are within both budgets
+     */
+    private void trim() {
+        Iterator<Map.Entry<Integer, Integer>> iterator = mLoadedMonths.entrySet().iterator();
+        while (iterator.hasNext()
+                && (mLoadedMonths.size() > mMaxLoadedMonths || mLoadedObjects > mMaxLoadedObjects)) {
+            Map.Entry<Integer, Integer> entry = iterator.next();
+            if (isPinned(entry.getKey()))
+                continue;
+
+            mCalendarObjectStore.removeLoadedMonth(getMonthDateCode(entry.getKey()));
+            mLoadedObjects -= entry.getValue();
+            iterator.remove();
+            mStats.evictionCount++;
+            mListener.onMonthRemoved(entry.getKey());
+        }
+        updateStats();
+    }
+
+    private boolean isPinned(int monthIndex) {
+        return mVisibleMonth != Integer.MIN_VALUE
+                && Math.abs(monthIndex - mVisibleMonth) <= PINNED_MONTHS_DISTANCE;
+    }
+
+    private void updateStats() {
+        mStats.loadedMonthCount = mLoadedMonths.size();
+        mStats.loadedObjectCount = mLoadedObjects;
+    }
+
+    private static int getMonthDateCode(int monthIndex) {
+        return EpochDay.yearOfMonthIndex(monthIndex) * 100 + EpochDay.monthOfMonthIndex(monthIndex);
+    }
+}
@@ -0,0 +1,225 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitmaps of month pages as they were last drawn, shown at once when a page of
+ * the same month is instantiated again (eg. swiping back to a month just left)
+ * while the page itself is bound on the next frame.
+ *
+ * Snapshots are keyed by month index and tagged with the version of their month
+ * and the version of the calendar as a whole at the time they were taken. A month
+ * version is incremented when the day cells of that month change, and the calendar
+ * version when everything may have changed (style, recurring objects, ...), so
+ * stale snapshots are never shown. The snapshots are kept within a budget of
+ * bytes, dropping the least recently used first.
+ *
+ * Dropped bitmaps are reused for the next snapshots (all pages have the same
+ * size), unless they are still shown by a page, in which case they are reused
+ * once that page releases them.
+ */
+class MonthSnapshotCache {
+
+    private static class Snapshot {
+        final Bitmap bitmap;
+        final int version;
+        final int monthVersion;
+
+        Snapshot(Bitmap bitmap, int version, int monthVersion) {
+            this.bitmap = bitmap;
+            this.version = version;
+            this.monthVersion = monthVersion;
+        }
+    }
+
+    /**
+     * Snapshots by month index, in access order
+     */
+    private final LinkedHashMap<Integer, Snapshot> mSnapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private int mBytes;
+    private int mMaxBytes;
+
+    /**
+     * Bitmaps shown by a page (from 'acquire' until 'release'), and bitmaps no
+     * longer used by a snapshot nor shown, ready to be drawn into again
+     */
+    private final Set<Bitmap> mShownBitmaps = new HashSet<>();
+    private final List<Bitmap> mFreeBitmaps = new ArrayList<>();
+    private int mFreeBytes;
+
+    private int mVersion;
+    private final SparseIntArray mMonthVersions = new SparseIntArray();
+
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * Set the budget of the snapshots in bytes (0 disables the cache)
+     */
+    void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        trim(mMaxBytes);
+        trimFreeBitmaps();
+    }
+
+    boolean isEnabled() {
+        return mMaxBytes > 0;
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Mark the snapshots of a month as out of date
+     */
+    void invalidateMonth(int month) {
+        mMonthVersions.put(month, mMonthVersions.get(month) + 1);
+    }
+
+    /**
+     * Mark all snapshots as out of date
+     */
+    void invalidateAll() {
+        mVersion++;
+    }
+
+    /**
+     * @return the up-to-date snapshot of the month with the given size, or null. The
+     * bitmap must be given back with 'release' once the page stops showing it.
+     */
+    Bitmap acquire(int month, int width, int height) {
+        Bitmap bitmap = get(month, width, height);
+        if (bitmap != null)
+            mShownBitmaps.add(bitmap);
+        return bitmap;
+    }
+
+    void release(Bitmap bitmap) {
+        if (bitmap == null || !mShownBitmaps.remove(bitmap))
+            return;
+
+        // Reuse it, unless it is still the snapshot of its month
+        for (Snapshot snapshot : mSnapshots.values())
+            if (snapshot.bitmap == bitmap)
+                return;
+        free(bitmap);
+    }
+
+    /**
+     * @return whether the month has no up-to-date snapshot of the page with the
+     * given size, that 'put' would take
+     */
+    boolean needs(int month, int width, int height) {
+        return isEnabled()
+                && width != 0 && height != 0
+                && (long) width * height * 4 <= mMaxBytes   // The snapshots are ARGB_8888
+                && get(month, width, height) == null;
+    }
+
+    /**
+     * Draw the page of a month into a snapshot, unless there is already an up-to-date
+     * one. The page must show the current versions.
+     */
+    void put(int month, View view) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (!needs(month, width, height))
+            return;
+
+        // Make room first, so the bitmap dropped can be the one drawn into
+        trim(mMaxBytes - width * height * 4);
+        Bitmap bitmap = obtain(width, height);
+        mCanvas.setBitmap(bitmap);
+        view.draw(mCanvas);
+        mCanvas.setBitmap(null);
+
+        mSnapshots.put(month, new Snapshot(bitmap, mVersion, mMonthVersions.get(month)));
+        mBytes += bitmap.getByteCount();
+        trimFreeBitmaps();
+    }
+
+    void clear() {
+        trim(0);
+    }
+
+    private Bitmap get(int month, int width, int height) {
+        Snapshot snapshot = mSnapshots.get(month);
+        if (snapshot == null)
+            return null;
+
+        if (snapshot.version != mVersion
+                || snapshot.monthVersion != mMonthVersions.get(month)
+                || snapshot.bitmap.getWidth() != width
+                || snapshot.bitmap.getHeight() != height) {
+            remove(month);
+            return null;
+        }
+        return snapshot.bitmap;
+    }
+
+    private Bitmap obtain(int width, int height) {
+        for (int i = mFreeBitmaps.size() - 1 ; i >= 0 ; i--) {
+            Bitmap bitmap = mFreeBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                mFreeBitmaps.remove(i);
+                mFreeBytes -= bitmap.getByteCount();
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void remove(int month) {
+        Snapshot snapshot = mSnapshots.remove(month);
+        if (snapshot != null)
+            drop(snapshot.bitmap);
+    }
+
+    private void drop(Bitmap bitmap) {
+        mBytes -= bitmap.getByteCount();
+        if (!mShownBitmaps.contains(bitmap))
+            free(bitmap);
+    }
+
+    private void free(Bitmap bitmap) {
+        mFreeBitmaps.add(bitmap);
+        mFreeBytes += bitmap.getByteCount();
+        trimFreeBitmaps();
+    }
+
+    /**
+     * The free bitmaps count towards the budget too, the oldest are recycled first
+     */
+    private void trimFreeBitmaps() {
+        while (mBytes + mFreeBytes > mMaxBytes && !mFreeBitmaps.isEmpty()) {
+            Bitmap freeBitmap = mFreeBitmaps.remove(0);
+            mFreeBytes -= freeBitmap.getByteCount();
+            freeBitmap.recycle();
+        }
+    }
+
+    /**
+     * Drop the least recently used snapshots until they are within the given bytes
+     */
+    private void trim(int maxBytes) {
+        Iterator<Map.Entry<Integer, Snapshot>> iterator = mSnapshots.entrySet().iterator();
+        while (mBytes > maxBytes && iterator.hasNext()) {
+            Bitmap bitmap = iterator.next().getValue().bitmap;
+            iterator.remove();
+            drop(bitmap);
+        }
+    }
+}
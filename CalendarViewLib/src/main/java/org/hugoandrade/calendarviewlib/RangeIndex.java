@@ -0,0 +1,318 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the Calendar Objects that span several days. The objects are kept
+ * in parallel arrays sorted by start day, which are also read as an implicit
+ * balanced tree (the middle of each range is the node of its two halves).
+ * Each node stores the latest end day of its subtree, so the objects that
+ * intersect a range of days are found in O(log n + k).
+ *
+ * Changes only mark the index as unsorted; it is sorted again (once) by the
+ * next query. The objects returned are created from the values of the index,
+ * unless it keeps the objects it is given (see setKeepObjects).
+ */
+class RangeIndex {
+
+    private int mSize;
+    private String[] mIDs = new String[0];
+    private int[] mStartDays = new int[0];
+    private int[] mStartMinutes = new int[0];
+    private int[] mEndDays = new int[0];
+    private int[] mEndMinutes = new int[0];
+    private int[] mPrimaryColors = new int[0];
+    private int[] mSecondaryColors = new int[0];
+
+    /**
+     * The objects as they were given, returned by 'get' (null unless the index keeps them)
+     */
+    private CalendarObject[] mObjects;
+
+    /**
+     * Latest end day of the subtree of each node
+     */
+    private int[] mMaxEndDays = new int[0];
+    private boolean mSorted = true;
+
+    /**
+     * Index of the objects by ID (kept up to date by all changes)
+     */
+    private Map<String, Integer> mIndexByIDMap = new HashMap<>();
+
+    private int[] mResults = new int[16];
+    private int mResultCount;
+
+    /**
+     * Add an object, replacing the one with the same ID (if any)
+     */
+    void add(CalendarObject calendarObject) {
+        String id = calendarObject.getID() == null ? null : calendarObject.getID().intern();
+        Integer existingIndex = id == null ? null : mIndexByIDMap.get(id);
+
+        int index;
+        if (existingIndex != null) {
+            index = existingIndex;
+        }
+        else {
+            if (mSize == mStartDays.length)
+                grow(Math.max(8, mSize * 2));
+            index = mSize++;
+        }
+
+        mIDs[index] = id;
+        mStartDays[index] = calendarObject.getEpochDay();
+        mStartMinutes[index] = calendarObject.getMinuteOfDay();
+        mEndDays[index] = calendarObject.getEndEpochDay();
+        mEndMinutes[index] = calendarObject.getEndMinuteOfDay();
+        mPrimaryColors[index] = calendarObject.getPrimaryColor();
+        mSecondaryColors[index] = calendarObject.getSecondaryColor();
+        if (mObjects != null)
+            mObjects[index] = calendarObject;
+        if (id != null)
+            mIndexByIDMap.put(id, index);
+        mSorted = false;
+    }
+
+    void setAll(List<CalendarObject> calendarObjectList) {
+        clear();
+        for (CalendarObject calendarObject : calendarObjectList)
+            add(calendarObject);
+    }
+
+    /**
+     * Take over the content of another index (eg. built on another thread),
+     * which must not be used afterwards.
+     */
+    void set(RangeIndex rangeIndex) {
+        mSize = rangeIndex.mSize;
+        mIDs = rangeIndex.mIDs;
+        mStartDays = rangeIndex.mStartDays;
+        mStartMinutes = rangeIndex.mStartMinutes;
+        mEndDays = rangeIndex.mEndDays;
+        mEndMinutes = rangeIndex.mEndMinutes;
+        mPrimaryColors = rangeIndex.mPrimaryColors;
+        mSecondaryColors = rangeIndex.mSecondaryColors;
+        mObjects = rangeIndex.mObjects;
+        mMaxEndDays = rangeIndex.mMaxEndDays;
+        mSorted = rangeIndex.mSorted;
+        mIndexByIDMap = rangeIndex.mIndexByIDMap;
+    }
+
+    /**
+     * Sort the index now, instead of on the next query
+     */
+    void prepare() {
+        if (!mSorted)
+            sort();
+    }
+
+    /**
+     * Remove the object with the given ID. The last object takes its place.
+     *
+     * @return the object removed, or null if not found
+     */
+    CalendarObject remove(String id) {
+        Integer index = id == null ? null : mIndexByIDMap.remove(id);
+        if (index == null)
+            return null;
+
+        CalendarObject calendarObject = get(index);
+        int last = mSize - 1;
+        if (index != last) {
+            move(last, index);
+            if (mIDs[index] != null)
+                mIndexByIDMap.put(mIDs[index], index);
+        }
+        mIDs[last] = null;
+        if (mObjects != null)
+            mObjects[last] = null;
+        mSize--;
+        mSorted = false;
+        return calendarObject;
+    }
+
+    /**
+     * Keep the objects given from now on, and return those (the objects already in
+     * the index are returned as created from their values)
+     */
+    void setKeepObjects(boolean keepObjects) {
+        if (keepObjects == (mObjects != null))
+            return;
+
+        if (keepObjects) {
+            CalendarObject[] objects = new CalendarObject[mStartDays.length];
+            for (int i = 0 ; i < mSize ; i++)
+                objects[i] = get(i);
+            mObjects = objects;
+        }
+        else {
+            mObjects = null;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(mIDs, 0, mSize, null);
+        if (mObjects != null)
+            Arrays.fill(mObjects, 0, mSize, null);
+        mSize = 0;
+        mSorted = true;
+        mIndexByIDMap.clear();
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    CalendarObject get(String id) {
+        Integer index = id == null ? null : mIndexByIDMap.get(id);
+        return index == null ? null : get(index);
+    }
+
+    /**
+     * Find the objects that intersect the given epoch days (inclusive). The indexes
+     * of the objects, sorted by start, are then read with getResult.
+     *
+     * @return the number of objects found
+     */
+    int query(int fromDay, int toDay) {
+        prepare();
+
+        mResultCount = 0;
+        query(0, mSize, fromDay, toDay);
+        return mResultCount;
+    }
+
+    int getResult(int i) {
+        return mResults[i];
+    }
+
+    int getStartDay(int index) {
+        return mStartDays[index];
+    }
+
+    int getEndDay(int index) {
+        return mEndDays[index];
+    }
+
+    int getPrimaryColor(int index) {
+        return mPrimaryColors[index];
+    }
+
+    /**
+     * @return the object at the given index, as it was given if the objects are kept,
+     * or else created from the values of the index
+     */
+    CalendarObject get(int index) {
+        if (mObjects != null)
+            return mObjects[index];
+        return new StoredCalendarObject(mIDs[index],
+                mStartDays[index], mStartMinutes[index],
+                mEndDays[index], mEndMinutes[index],
+                mPrimaryColors[index], mSecondaryColors[index]);
+    }
+
+    private void query(int low, int high, int fromDay, int toDay) {
+        if (low >= high)
+            return;
+
+        int mid = (low + high) >>> 1;
+        if (mMaxEndDays[mid] < fromDay)
+            return;
+
+        query(low, mid, fromDay, toDay);
+        if (mStartDays[mid] <= toDay) {
+            if (mEndDays[mid] >= fromDay) {
+                if (mResultCount == mResults.length)
+                    mResults = Arrays.copyOf(mResults, mResultCount * 2);
+                mResults[mResultCount++] = mid;
+            }
+            query(mid + 1, high, fromDay, toDay);
+        }
+    }
+
+    private void sort() {
+        // Sort (start day, index) pairs packed into longs, then permute the columns
+        long[] keys = new long[mSize];
+        for (int i = 0 ; i < mSize ; i++)
+            keys[i] = ((long) mStartDays[i] << 32) | i;
+        Arrays.sort(keys);
+
+        String[] ids = new String[mIDs.length];
+        int[] startDays = new int[mStartDays.length];
+        int[] startMinutes = new int[mStartMinutes.length];
+        int[] endDays = new int[mEndDays.length];
+        int[] endMinutes = new int[mEndMinutes.length];
+        int[] primaryColors = new int[mPrimaryColors.length];
+        int[] secondaryColors = new int[mSecondaryColors.length];
+        CalendarObject[] objects = mObjects == null ? null : new CalendarObject[mObjects.length];
+        for (int i = 0 ; i < mSize ; i++) {
+            int from = (int) keys[i];
+            ids[i] = mIDs[from];
+            startDays[i] = mStartDays[from];
+            startMinutes[i] = mStartMinutes[from];
+            endDays[i] = mEndDays[from];
+            endMinutes[i] = mEndMinutes[from];
+            primaryColors[i] = mPrimaryColors[from];
+            secondaryColors[i] = mSecondaryColors[from];
+            if (objects != null)
+                objects[i] = mObjects[from];
+        }
+        mIDs = ids;
+        mStartDays = startDays;
+        mStartMinutes = startMinutes;
+        mEndDays = endDays;
+        mEndMinutes = endMinutes;
+        mPrimaryColors = primaryColors;
+        mSecondaryColors = secondaryColors;
+        mObjects = objects;
+
+        mIndexByIDMap.clear();
+        for (int i = 0 ; i < mSize ; i++)
+            if (mIDs[i] != null)
+                mIndexByIDMap.put(mIDs[i], i);
+
+        buildMaxEndDays(0, mSize);
+        mSorted = true;
+    }
+
+    private int buildMaxEndDays(int low, int high) {
+        if (low >= high)
+            return Integer.MIN_VALUE;
+
+        int mid = (low + high) >>> 1;
+        mMaxEndDays[mid] = Math.max(mEndDays[mid],
+                Math.max(buildMaxEndDays(low, mid), buildMaxEndDays(mid + 1, high)));
+        return mMaxEndDays[mid];
+    }
+
+    private void move(int from, int to) {
+        mIDs[to] = mIDs[from];
+        mStartDays[to] = mStartDays[from];
+        mStartMinutes[to] = mStartMinutes[from];
+        mEndDays[to] = mEndDays[from];
+        mEndMinutes[to] = mEndMinutes[from];
+        mPrimaryColors[to] = mPrimaryColors[from];
+        mSecondaryColors[to] = mSecondaryColors[from];
+        if (mObjects != null)
+            mObjects[to] = mObjects[from];
+    }
+
+    private void grow(int capacity) {
+        mIDs = Arrays.copyOf(mIDs, capacity);
+        mStartDays = Arrays.copyOf(mStartDays, capacity);
+        mStartMinutes = Arrays.copyOf(mStartMinutes, capacity);
+        mEndDays = Arrays.copyOf(mEndDays, capacity);
+        mEndMinutes = Arrays.copyOf(mEndMinutes, capacity);
+        mPrimaryColors = Arrays.copyOf(mPrimaryColors, capacity);
+        mSecondaryColors = Arrays.copyOf(mSecondaryColors, capacity);
+        if (mObjects != null)
+            mObjects = Arrays.copyOf(mObjects, capacity);
+        mMaxEndDays = Arrays.copyOf(mMaxEndDays, capacity);
+    }
+}
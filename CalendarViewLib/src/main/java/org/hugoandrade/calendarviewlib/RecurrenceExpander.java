@@ -0,0 +1,128 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occurrences of recurring calendar objects, expanded one month at a time
+ * (only for the months being shown) into a CalendarObjectStore that is used
+ * as a cache. The least recently used months are dropped beyond a limit and
+ * expanded again when needed.
+ */
+class RecurrenceExpander {
+
+    static final int MAX_EXPANDED_MONTHS = 12;
+
+    private final Map<String, Recurrence> mRecurrences = new LinkedHashMap<>();
+
+    private final CalendarObjectStore mExpansions = new CalendarObjectStore();
+
+    /**
+     * yyyymm codes of the expanded months, least recently used first (a few
+     * months, so searched linearly and without boxing on every cell bound)
+     */
+    private final int[] mExpandedMonths = new int[MAX_EXPANDED_MONTHS];
+    private int mExpandedMonthCount;
+
+    private final int[] mOccurrences = new int[31];
+
+    void put(String id, RecurrenceRule rule, int primaryColor, int secondaryColor) {
+        mRecurrences.put(id, new Recurrence(id, rule, primaryColor, secondaryColor));
+        clearExpansions();
+    }
+
+    boolean remove(String id) {
+        if (mRecurrences.remove(id) == null)
+            return false;
+        clearExpansions();
+        return true;
+    }
+
+    void clear() {
+        mRecurrences.clear();
+        clearExpansions();
+    }
+
+    boolean isEmpty() {
+        return mRecurrences.isEmpty();
+    }
+
+    /**
+     * @return the occurrences of the month with the given yyyymm code, expanding the month if needed.
+     * The returned month must not be modified.
+     */
+    CalendarObjectStore.Month getMonth(int monthDateCode) {
+        if (mRecurrences.isEmpty())
+            return CalendarObjectStore.Month.EMPTY;
+
+        int index = indexOfExpandedMonth(monthDateCode);
+        if (index == -1) {
+            // Drop the least recently used month to make room
+            if (mExpandedMonthCount == MAX_EXPANDED_MONTHS) {
+                mExpansions.removeLoadedMonth(mExpandedMonths[0]);
+                index = 0;
+            }
+            else {
+                index = mExpandedMonthCount++;
+            }
+            expand(monthDateCode);
+        }
+
+        // Move it to the most recently used end
+        System.arraycopy(mExpandedMonths, index + 1, mExpandedMonths, index, mExpandedMonthCount - index - 1);
+        mExpandedMonths[mExpandedMonthCount - 1] = monthDateCode;
+        return mExpansions.getMonth(monthDateCode);
+    }
+
+    private int indexOfExpandedMonth(int monthDateCode) {
+        for (int i = 0 ; i < mExpandedMonthCount ; i++)
+            if (mExpandedMonths[i] == monthDateCode)
+                return i;
+        return -1;
+    }
+
+    private void expand(int monthDateCode) {
+        int year = monthDateCode / 100;
+        int month = monthDateCode % 100;
+        int firstDay = EpochDay.of(year, month, 1);
+        int lastDay = firstDay + EpochDay.lengthOfMonth(year, month) - 1;
+
+        List<CalendarObject> occurrences = new ArrayList<>();
+        for (Recurrence recurrence : mRecurrences.values()) {
+            int count = recurrence.rule.getOccurrences(firstDay, lastDay, mOccurrences);
+            for (int i = 0 ; i < count ; i++)
+                occurrences.add(new StoredCalendarObject(
+                        recurrence.id,
+                        mOccurrences[i],
+                        recurrence.rule.getMinuteOfDay(),
+                        recurrence.primaryColor,
+                        recurrence.secondaryColor));
+        }
+        mExpansions.setLoadedMonth(monthDateCode, occurrences);
+    }
+
+    private void clearExpansions() {
+        mExpansions.clear();
+        mExpandedMonthCount = 0;
+    }
+
+    private static class Recurrence {
+
+        final String id;
+        final RecurrenceRule rule;
+        final int primaryColor;
+        final int secondaryColor;
+
+        Recurrence(String id, RecurrenceRule rule, int primaryColor, int secondaryColor) {
+            this.id = id;
+            this.rule = rule;
+            this.primaryColor = primaryColor;
+            this.secondaryColor = secondaryColor;
+        }
+    }
+}
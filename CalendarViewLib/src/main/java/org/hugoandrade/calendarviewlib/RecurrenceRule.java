@@ -0,0 +1,283 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * Repetition of a calendar object: daily, weekly (on given weekdays) or monthly
+ * (on a day of the month or on the nth weekday of the month), every 'interval'
+ * days/weeks/months from a start date, optionally limited by an end date or a
+ * number of occurrences, and with excluded dates.
+ *
+ * Occurrences are computed on demand for a range of days, never all at once.
+ */
+public class RecurrenceRule {
+
+    public static final int DAILY = 0;
+    public static final int WEEKLY = 1;
+    public static final int MONTHLY = 2;
+
+    /**
+     * 'nth' value of the last weekday of the month
+     */
+    public static final int LAST = -1;
+
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private final int mFrequency;
+    private final int mInterval;
+    private final int mStartDay;
+    private final int mMinuteOfDay;
+
+    /**
+     * Bit (1 << Calendar.SUNDAY ... Calendar.SATURDAY) of each weekday (WEEKLY)
+     */
+    private final int mWeekDays;
+
+    /**
+     * Day of the month (MONTHLY), or 0 when the nth weekday is used
+     */
+    private final int mDayOfMonth;
+    private final int mNth;
+    private final int mNthWeekDay;
+
+    /**
+     * Last day an occurrence can happen on (both 'until' and 'count' end up here)
+     */
+    private final int mEndDay;
+
+    /**
+     * Sorted epoch days of the excluded dates
+     */
+    private final int[] mExceptions;
+
+    private RecurrenceRule(Builder builder) {
+        mFrequency = builder.frequency;
+        mInterval = builder.interval;
+        mStartDay = EpochDay.of(
+                builder.start.get(Calendar.YEAR),
+                builder.start.get(Calendar.MONTH),
+                builder.start.get(Calendar.DAY_OF_MONTH));
+        mMinuteOfDay = builder.start.get(Calendar.HOUR_OF_DAY) * 60 + builder.start.get(Calendar.MINUTE);
+
+        mWeekDays = builder.weekDays != 0 ? builder.weekDays : 1 << EpochDay.dayOfWeek(mStartDay);
+        mNth = builder.nth;
+        mNthWeekDay = builder.nthWeekDay;
+        mDayOfMonth = mNth != 0 ? 0 : builder.start.get(Calendar.DAY_OF_MONTH);
+
+        mExceptions = Arrays.copyOf(builder.exceptions, builder.exceptionCount);
+        Arrays.sort(mExceptions);
+
+        int endDay = builder.until == null ? NONE : EpochDay.of(
+                builder.until.get(Calendar.YEAR),
+                builder.until.get(Calendar.MONTH),
+                builder.until.get(Calendar.DAY_OF_MONTH));
+        if (builder.count > 0) {
+            // Excluded dates still count as occurrences
+            int day = mStartDay - 1;
+            for (int i = 0 ; i < builder.count && day != NONE ; i++)
+                day = nextOccurrence(day + 1);
+            endDay = Math.min(endDay, day);
+        }
+        mEndDay = endDay;
+    }
+
+    public int getMinuteOfDay() {
+        return mMinuteOfDay;
+    }
+
+    /**
+     * @return the number of occurrences between the two epoch days (inclusive),
+     * written to 'out' (which must be big enough, ie. toDay - fromDay + 1)
+     */
+    int getOccurrences(int fromDay, int toDay, int[] out) {
+        int count = 0;
+        int exception = Arrays.binarySearch(mExceptions, fromDay);
+        if (exception < 0)
+            exception = -exception - 1;
+
+        for (int day = nextOccurrence(fromDay) ; day <= toDay && day <= mEndDay ; day = nextOccurrence(day + 1)) {
+            while (exception < mExceptions.length && mExceptions[exception] < day)
+                exception++;
+            if (exception < mExceptions.length && mExceptions[exception] == day)
+                continue;
+
+            out[count++] = day;
+        }
+        return count;
+    }
+
+    /**
+     * @return the first occurrence on or after the given epoch day (ignoring the end
+     * day and the excluded dates), or NONE
+     */
+    private int nextOccurrence(int day) {
+        day = Math.max(day, mStartDay);
+
+        switch (mFrequency) {
+            case DAILY: {
+                int intervals = (day - mStartDay + mInterval - 1) / mInterval;
+                return mStartDay + intervals * mInterval;
+            }
+            case WEEKLY: {
+                // Weeks start on Sunday, counted from the week of the start day
+                int firstWeekDay = mStartDay - (EpochDay.dayOfWeek(mStartDay) - Calendar.SUNDAY);
+                int week = (day - firstWeekDay) / 7;
+                int weekDay = (day - firstWeekDay) % 7;
+                if (week % mInterval != 0) {
+                    week += mInterval - week % mInterval;
+                    weekDay = 0;
+                }
+                // The rest of this week, then the start of the next repeating week
+                for (int i = 0 ; i < 7 ; i++) {
+                    int nextWeekDay = (weekDay + i) % 7;
+                    if ((mWeekDays & (1 << (nextWeekDay + Calendar.SUNDAY))) != 0)
+                        return firstWeekDay
+                                + (nextWeekDay < weekDay ? week + mInterval : week) * 7
+                                + nextWeekDay;
+                }
+                return NONE;
+            }
+            case MONTHLY: {
+                int startMonth = EpochDay.monthIndex(EpochDay.year(mStartDay), EpochDay.month(mStartDay));
+                int month = EpochDay.monthIndex(EpochDay.year(day), EpochDay.month(day));
+                if ((month - startMonth) % mInterval != 0)
+                    month += mInterval - (month - startMonth) % mInterval;
+
+                // Some months do not have the day (eg. the 31st or a 5th weekday)
+                for (int i = 0 ; i < 48 ; i++, month += mInterval) {
+                    int occurrence = getDayOfMonth(month);
+                    if (occurrence != NONE && occurrence >= day)
+                        return occurrence;
+                }
+                return NONE;
+            }
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * @return the epoch day of the occurrence in the given month, or NONE if the month does not have it
+     */
+    private int getDayOfMonth(int monthIndex) {
+        int year = EpochDay.yearOfMonthIndex(monthIndex);
+        int month = EpochDay.monthOfMonthIndex(monthIndex);
+        int firstDay = EpochDay.of(year, month, 1);
+        int lengthOfMonth = EpochDay.lengthOfMonth(year, month);
+
+        if (mNth == 0)
+            return mDayOfMonth <= lengthOfMonth ? firstDay + mDayOfMonth - 1 : NONE;
+
+        if (mNth == LAST) {
+            int lastDay = firstDay + lengthOfMonth - 1;
+            return lastDay - (EpochDay.dayOfWeek(lastDay) - mNthWeekDay + 7) % 7;
+        }
+
+        int day = firstDay + (mNthWeekDay - EpochDay.dayOfWeek(firstDay) + 7) % 7 + (mNth - 1) * 7;
+        return day < firstDay + lengthOfMonth ? day : NONE;
+    }
+
+    public static class Builder {
+
+        private final Calendar start;
+        private final int frequency;
+        private int interval = 1;
+        private int weekDays;
+        private int nth;
+        private int nthWeekDay;
+        private Calendar until;
+        private int count;
+        private int[] exceptions = new int[0];
+        private int exceptionCount;
+
+        /**
+         * @param start datetime of the first occurrence
+         * @param frequency DAILY, WEEKLY or MONTHLY
+         */
+        public Builder(Calendar start, int frequency) {
+            if (start == null)
+                throw new IllegalArgumentException("start must not be null");
+            if (frequency != DAILY && frequency != WEEKLY && frequency != MONTHLY)
+                throw new IllegalArgumentException("invalid frequency: " + frequency);
+            this.start = start;
+            this.frequency = frequency;
+        }
+
+        /**
+         * Repeat every 'interval' days, weeks or months. Defaults to 1.
+         */
+        public Builder setInterval(int interval) {
+            if (interval <= 0)
+                throw new IllegalArgumentException("interval must be positive: " + interval);
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Weekdays of a WEEKLY rule (Calendar.SUNDAY ... Calendar.SATURDAY).
+         * Defaults to the weekday of the start.
+         */
+        public Builder setWeekDays(int... weekDays) {
+            if (weekDays.length == 0)
+                throw new IllegalArgumentException("no weekdays");
+            int mask = 0;
+            for (int weekDay : weekDays)
+                mask |= 1 << checkWeekDay(weekDay);
+            this.weekDays = mask;
+            return this;
+        }
+
+        /**
+         * Repeat a MONTHLY rule on the nth (1 to 5, or LAST) weekday of the month,
+         * instead of on the day of the month of the start.
+         */
+        public Builder setNthWeekDay(int nth, int weekDay) {
+            if ((nth < 1 || nth > 5) && nth != LAST)
+                throw new IllegalArgumentException("nth must be 1 to 5 or LAST: " + nth);
+            this.nth = nth;
+            this.nthWeekDay = checkWeekDay(weekDay);
+            return this;
+        }
+
+        /**
+         * Last date (inclusive) an occurrence can happen on
+         */
+        public Builder setUntil(Calendar until) {
+            this.until = until;
+            return this;
+        }
+
+        /**
+         * Number of occurrences (excluded dates included)
+         */
+        public Builder setCount(int count) {
+            if (count < 0)
+                throw new IllegalArgumentException("count must not be negative: " + count);
+            this.count = count;
+            return this;
+        }
+
+        public Builder addException(Calendar date) {
+            if (exceptionCount == exceptions.length)
+                exceptions = Arrays.copyOf(exceptions, Math.max(4, exceptionCount * 2));
+            exceptions[exceptionCount++] = EpochDay.of(
+                    date.get(Calendar.YEAR),
+                    date.get(Calendar.MONTH),
+                    date.get(Calendar.DAY_OF_MONTH));
+            return this;
+        }
+
+        public RecurrenceRule create() {
+            return new RecurrenceRule(this);
+        }
+
+        private static int checkWeekDay(int weekDay) {
+            if (weekDay < Calendar.SUNDAY || weekDay > Calendar.SATURDAY)
+                throw new IllegalArgumentException("invalid weekday: " + weekDay);
+            return weekDay;
+        }
+    }
+}
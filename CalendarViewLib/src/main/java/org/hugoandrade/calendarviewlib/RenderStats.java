@@ -0,0 +1,146 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Counters of the work done to build and bind month pages, read by the render
+ * benchmark of the unit tests. Disabled by default, in which case every hook
+ * returns at once (no clock reads, no view counting).
+ */
+class RenderStats {
+
+    /**
+     * Bytes allocated so far by the calling thread. Android has no such counter, so
+     * it is given by the tests (from the JVM).
+     */
+    interface AllocationCounter {
+        long getAllocatedBytes();
+    }
+
+    private boolean enabled;
+    private AllocationCounter allocationCounter;
+    private long startAllocatedBytes;
+
+    int pagesInflated;
+    int pagesRecycled;
+    int pagesBound;
+    int cellsBound;
+    int viewsPerPage;
+    int pagesFromSnapshot;
+    int layoutPasses;
+    long inflateTimeNanos;
+    long bindTimeNanos;
+    long measureTimeNanos;
+    long layoutTimeNanos;
+    /**
+     * Bytes allocated while binding pages (0 without an allocation counter)
+     */
+    long bindAllocatedBytes;
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void setAllocationCounter(AllocationCounter allocationCounter) {
+        this.allocationCounter = allocationCounter;
+    }
+
+    /**
+     * @return the start time of the work being measured (0 when disabled)
+     */
+    long start() {
+        if (!enabled)
+            return 0;
+        if (allocationCounter != null)
+            startAllocatedBytes = allocationCounter.getAllocatedBytes();
+        return System.nanoTime();
+    }
+
+    void onPageInflated(long start, View page) {
+        if (!enabled)
+            return;
+        pagesInflated++;
+        inflateTimeNanos += System.nanoTime() - start;
+        viewsPerPage = countViews(page);
+    }
+
+    void onPageRecycled() {
+        if (enabled)
+            pagesRecycled++;
+    }
+
+    void onPageFromSnapshot() {
+        if (enabled)
+            pagesFromSnapshot++;
+    }
+
+    void onPageBound(long start) {
+        if (!enabled)
+            return;
+        pagesBound++;
+        bindTimeNanos += System.nanoTime() - start;
+        if (allocationCounter != null)
+            bindAllocatedBytes += allocationCounter.getAllocatedBytes() - startAllocatedBytes;
+    }
+
+    void onCellBound() {
+        if (enabled)
+            cellsBound++;
+    }
+
+    void onMeasured(long start) {
+        if (enabled)
+            measureTimeNanos += System.nanoTime() - start;
+    }
+
+    void onLaidOut(long start) {
+        if (!enabled)
+            return;
+        layoutPasses++;
+        layoutTimeNanos += System.nanoTime() - start;
+    }
+
+    void reset() {
+        pagesInflated = 0;
+        pagesRecycled = 0;
+        pagesBound = 0;
+        cellsBound = 0;
+        viewsPerPage = 0;
+        pagesFromSnapshot = 0;
+        layoutPasses = 0;
+        inflateTimeNanos = 0;
+        bindTimeNanos = 0;
+        measureTimeNanos = 0;
+        layoutTimeNanos = 0;
+        bindAllocatedBytes = 0;
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0 ; i < viewGroup.getChildCount() ; i++)
+                count += countViews(viewGroup.getChildAt(i));
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderStats{" +
+                "pagesInflated=" + pagesInflated +
+                ", pagesRecycled=" + pagesRecycled +
+                ", pagesBound=" + pagesBound +
+                ", cellsBound=" + cellsBound +
+                ", viewsPerPage=" + viewsPerPage +
+                ", pagesFromSnapshot=" + pagesFromSnapshot +
+                ", layoutPasses=" + layoutPasses +
+                ", inflateTimeNanos=" + inflateTimeNanos +
+                ", bindTimeNanos=" + bindTimeNanos +
+                ", measureTimeNanos=" + measureTimeNanos +
+                ", layoutTimeNanos=" + layoutTimeNanos +
+                ", bindAllocatedBytes=" + bindAllocatedBytes +
+                '}';
+    }
+}
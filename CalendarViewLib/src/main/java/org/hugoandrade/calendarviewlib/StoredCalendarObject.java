@@ -0,0 +1,99 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+
+import java.util.Calendar;
+
+/**
+ * CalendarObject handed out by the calendar, created from the values kept in its
+ * store or range index (or from an occurrence of a recurring object). The
+ * Calendars are only built when asked for, to the minute.
+ */
+class StoredCalendarObject extends CalendarObject {
+
+    private final int mEpochDay;
+    private final int mMinuteOfDay;
+
+    /**
+     * End of objects that span several days (the start otherwise)
+     */
+    private final boolean mHasEnd;
+    private final int mEndEpochDay;
+    private final int mEndMinuteOfDay;
+
+    private Calendar mDatetime;
+    private Calendar mEndDatetime;
+
+    StoredCalendarObject(String id, int epochDay, int minuteOfDay, int primaryColor, int secondaryColor) {
+        super(id, null, primaryColor, secondaryColor);
+        mEpochDay = epochDay;
+        mMinuteOfDay = minuteOfDay;
+        mHasEnd = false;
+        mEndEpochDay = epochDay;
+        mEndMinuteOfDay = minuteOfDay;
+    }
+
+    StoredCalendarObject(String id,
+                         int epochDay, int minuteOfDay,
+                         int endEpochDay, int endMinuteOfDay,
+                         int primaryColor, int secondaryColor) {
+        super(id, null, primaryColor, secondaryColor);
+        mEpochDay = epochDay;
+        mMinuteOfDay = minuteOfDay;
+        mHasEnd = true;
+        mEndEpochDay = endEpochDay;
+        mEndMinuteOfDay = endMinuteOfDay;
+    }
+
+    @Override
+    public Calendar getDatetime() {
+        if (mDatetime == null)
+            mDatetime = toCalendar(mEpochDay, mMinuteOfDay);
+        return mDatetime;
+    }
+
+    @Override
+    public Calendar getEndDatetime() {
+        if (mHasEnd && mEndDatetime == null)
+            mEndDatetime = toCalendar(mEndEpochDay, mEndMinuteOfDay);
+        return mEndDatetime;
+    }
+
+    @Override
+    int getEpochDay() {
+        return mEpochDay;
+    }
+
+    @Override
+    int getMinuteOfDay() {
+        return mMinuteOfDay;
+    }
+
+    @Override
+    int getEndEpochDay() {
+        return mEndEpochDay;
+    }
+
+    @Override
+    int getEndMinuteOfDay() {
+        return mEndMinuteOfDay;
+    }
+
+    @Override
+    boolean hasEnd() {
+        return mHasEnd;
+    }
+
+    private static Calendar toCalendar(int epochDay, int minuteOfDay) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(
+                EpochDay.year(epochDay),
+                EpochDay.month(epochDay),
+                EpochDay.dayOfMonth(epochDay),
+                minuteOfDay / 60,
+                minuteOfDay % 60);
+        return calendar;
+    }
+}
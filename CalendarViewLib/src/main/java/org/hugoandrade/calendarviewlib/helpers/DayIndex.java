@@ -0,0 +1,75 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+/**
+ * Integer arithmetic of the month buckets of Calendar Objects, which keep the
+ * epoch day and minute of the day of their objects in parallel arrays sorted
+ * by datetime: sort keys, binary search by datetime and the index of the first
+ * object of every day. Free of Android classes, so it can run on a plain JVM.
+ */
+public final class DayIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * Length of a day index: days 1 to 31 of the month, plus the end of the month
+     */
+    public static final int LENGTH = 33;
+
+    private DayIndex() {}
+
+    /**
+     * @return the minutes since 1970-01-01
+     */
+    public static long datetime(int epochDay, int minuteOfDay) {
+        return (long) epochDay * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    /**
+     * @return the datetime and the given (list) index packed into a long. Sorting
+     * the keys sorts by datetime, and keeps the index order of equal datetimes.
+     */
+    public static long key(int epochDay, int minuteOfDay, int index) {
+        return (datetime(epochDay, minuteOfDay) << 32) | index;
+    }
+
+    public static long datetimeOfKey(long key) {
+        return key >> 32;
+    }
+
+    public static int indexOfKey(long key) {
+        return (int) key;
+    }
+
+    /**
+     * @return the index of the first of the 'size' sorted datetimes that is
+     * after the given one
+     */
+    public static int upperBound(int[] epochDays, int[] minutesOfDay, int size, int epochDay, int minuteOfDay) {
+        long datetime = datetime(epochDay, minuteOfDay);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (datetime(epochDays[mid], minutesOfDay[mid]) <= datetime)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Fill 'dayIndex' (of LENGTH) so that dayIndex[d] is the index of the first of
+     * the 'size' sorted epoch days that is on or after day 'd' of the month
+     * starting at 'firstDay'. The objects of day 'd' are then in
+     * [dayIndex[d], dayIndex[d + 1]).
+     */
+    public static void build(int[] epochDays, int size, int firstDay, int[] dayIndex) {
+        int i = 0;
+        for (int d = 1 ; d < LENGTH ; d++) {
+            while (i < size && epochDays[i] - firstDay + 1 < d)
+                i++;
+            dayIndex[d] = i;
+        }
+    }
+}
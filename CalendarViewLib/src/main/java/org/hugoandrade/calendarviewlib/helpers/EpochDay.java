@@ -0,0 +1,126 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+/**
+ * Integer date arithmetic on epoch days (days since 1970-01-01) for the
+ * proleptic Gregorian calendar. Months are 0-based and days of the week
+ * use the java.util.Calendar constants (SUNDAY = 1 ... SATURDAY = 7), so
+ * the values can be mixed freely with YMDCalendar and Calendar fields.
+ */
+public final class EpochDay {
+
+    private static final int DAYS_PER_ERA = 146097;
+    private static final int DAYS_FROM_0000_03_01_TO_1970_01_01 = 719468;
+
+    private EpochDay() {}
+
+    public static int of(int year, int month, int day) {
+        int m = month + 1;
+        int y = m <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_0000_03_01_TO_1970_01_01;
+    }
+
+    public static int of(YMDCalendar ymdCalendar) {
+        return of(ymdCalendar.year, ymdCalendar.month, ymdCalendar.day);
+    }
+
+    public static YMDCalendar toYMDCalendar(int epochDay) {
+        return new YMDCalendar(dayOfMonth(epochDay), month(epochDay), year(epochDay));
+    }
+
+    public static int year(int epochDay) {
+        int dayOfEra = dayOfEra(epochDay);
+        int yearOfEra = yearOfEra(dayOfEra);
+        int year = yearOfEra + era(epochDay) * 400;
+        return marchBasedMonth(dayOfEra, yearOfEra) >= 10 ? year + 1 : year;
+    }
+
+    public static int month(int epochDay) {
+        int dayOfEra = dayOfEra(epochDay);
+        int mp = marchBasedMonth(dayOfEra, yearOfEra(dayOfEra));
+        return mp < 10 ? mp + 2 : mp - 10;
+    }
+
+    public static int dayOfMonth(int epochDay) {
+        int dayOfEra = dayOfEra(epochDay);
+        int dayOfYear = dayOfYear(dayOfEra, yearOfEra(dayOfEra));
+        int mp = (5 * dayOfYear + 2) / 153;
+        return dayOfYear - (153 * mp + 2) / 5 + 1;
+    }
+
+    /**
+     * @return the day of the week, from Calendar.SUNDAY (1) to Calendar.SATURDAY (7)
+     */
+    public static int dayOfWeek(int epochDay) {
+        // 1970-01-01 was a Thursday (5)
+        int dayOfWeek = (epochDay + 4) % 7;
+        return (dayOfWeek < 0 ? dayOfWeek + 7 : dayOfWeek) + 1;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 1:
+                return isLeapYear(year) ? 29 : 28;
+            case 3:
+            case 5:
+            case 8:
+            case 10:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return the first day shown in the month grid, ie. the first day of
+     * the month moved back to the week's starting weekday.
+     */
+    public static int firstDayOfGrid(int year, int month, int startingWeekDay) {
+        int firstDayOfMonth = of(year, month, 1);
+        return firstDayOfMonth - (dayOfWeek(firstDayOfMonth) - startingWeekDay + 7) % 7;
+    }
+
+    /**
+     * @return a month counter (year * 12 + month) that can be added to and
+     * subtracted from directly.
+     */
+    public static int monthIndex(int year, int month) {
+        return year * 12 + month;
+    }
+
+    public static int yearOfMonthIndex(int monthIndex) {
+        return monthIndex >= 0 ? monthIndex / 12 : (monthIndex - 11) / 12;
+    }
+
+    public static int monthOfMonthIndex(int monthIndex) {
+        return monthIndex - yearOfMonthIndex(monthIndex) * 12;
+    }
+
+    private static int era(int epochDay) {
+        int z = epochDay + DAYS_FROM_0000_03_01_TO_1970_01_01;
+        return (z >= 0 ? z : z - DAYS_PER_ERA + 1) / DAYS_PER_ERA;
+    }
+
+    private static int dayOfEra(int epochDay) {
+        return epochDay + DAYS_FROM_0000_03_01_TO_1970_01_01 - era(epochDay) * DAYS_PER_ERA;
+    }
+
+    private static int yearOfEra(int dayOfEra) {
+        return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    }
+
+    private static int dayOfYear(int dayOfEra, int yearOfEra) {
+        return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    }
+
+    private static int marchBasedMonth(int dayOfEra, int yearOfEra) {
+        return (5 * dayOfYear(dayOfEra, yearOfEra) + 2) / 153;
+    }
+}
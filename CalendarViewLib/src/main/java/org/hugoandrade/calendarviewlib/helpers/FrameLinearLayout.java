@@ -7,7 +7,6 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Outline;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Build;
@@ -28,8 +27,10 @@ public class FrameLinearLayout extends LinearLayout {
     private int frameColor;
 
     private Paint strokePaint = new Paint();
+    /**
+     * Area inside the frame, the children are clipped to it
+     */
     private RectF rect = new RectF();
-    private Path path = new Path();
 
 
     public FrameLinearLayout(Context context) {
@@ -91,19 +92,12 @@ public class FrameLinearLayout extends LinearLayout {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
 
-        if (w != oldw || h != oldh)
-            requestLayout();
-
-        // compute the path
-        path.reset();
+        // compute the clip (an axis-aligned rect, so no Path is needed)
         rect.set(
                 0 + (frameStart < 0 ? 0 : frameStart),
                 0 + (frameTop < 0 ? 0 : frameTop),
                 w - (frameEnd < 0 ? 0 : frameEnd),
                 h - (frameBottom < 0 ? 0 : frameBottom));
-        path.addRect(rect, Path.Direction.CW);
-        path.close();
-
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             setOutlineProvider(new CustomOutline(w, h, 0));
@@ -113,7 +107,7 @@ public class FrameLinearLayout extends LinearLayout {
     @Override
     protected void dispatchDraw(Canvas canvas) {
         int save = canvas.save();
-        canvas.clipPath(path);
+        canvas.clipRect(rect);
         super.dispatchDraw(canvas);
         canvas.restoreToCount(save);
     }
@@ -0,0 +1,333 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.hugoandrade.calendarviewlib.R;
+
+/**
+ * Month grid that draws its 6x7 day cells directly on its own canvas,
+ * instead of using a FrameLinearLayout, SelectedTextView and
+ * MultipleTriangleView per cell. Each cell draws the same elements as the
+ * xml_grid_item_day layout (background, frame, day text, current-day circle
+ * and note triangles) and the view does its own hit-testing. The bars of
+ * multi-day objects (SpanBars) are drawn over the cells.
+ */
+public class MonthGridView extends View {
+
+    public static final int NUMBER_OF_COLUMNS = 7;
+    public static final int NUMBER_OF_ROWS = 6;
+    public static final int NUMBER_OF_CELLS = NUMBER_OF_COLUMNS * NUMBER_OF_ROWS;
+
+    private static final int DEFAULT_NUMBER_OF_NOTES = 4;
+
+    // Per cell attributes
+    private final String[] mTexts = new String[NUMBER_OF_CELLS];
+    private final int[] mTextColors = new int[NUMBER_OF_CELLS];
+    private final int[] mTextStyles = new int[NUMBER_OF_CELLS];
+    private final int[] mBackgroundColors = new int[NUMBER_OF_CELLS];
+    private final int[] mFrameColors = new int[NUMBER_OF_CELLS];
+    private final int[] mCircleColors = new int[NUMBER_OF_CELLS];
+    private final boolean[] mCircleEnabled = new boolean[NUMBER_OF_CELLS];
+    private final float[] mAlphas = new float[NUMBER_OF_CELLS];
+    private int[] mNoteColors;
+    private int[] mNoteBackgroundColors;
+
+    private int mNumberOfNotes;
+    private float mFrameWidth;
+    private float mDayTextBoxSize;
+    private float mCirclePadding;
+    private float mNotesPadding;
+    private float mNotesSeparatorWidth;
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mTrianglePath = new Path();
+    private final Typeface[] mTypefaces = new Typeface[4];
+
+    private SpanBars mSpanBars;
+
+    private int mTouchedCell = -1;
+    private int mClickedCell = -1;
+    private OnCellClickListener mOnCellClickListener;
+
+    public MonthGridView(Context context) {
+        this(context, null);
+    }
+
+    public MonthGridView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MonthGridView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs);
+    }
+
+    private void init(AttributeSet attrs) {
+        // Defaults mirror xml_grid_item_day
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, getResources().getDisplayMetrics());
+        mFrameWidth = dp(1);
+        mDayTextBoxSize = dp(30);
+        mCirclePadding = dp(2);
+        mNotesPadding = dp(2);
+        mNotesSeparatorWidth = dp(2);
+        mNumberOfNotes = DEFAULT_NUMBER_OF_NOTES;
+
+        if (attrs != null) {
+            TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.MonthGridView);
+            textSize = a.getDimension(R.styleable.MonthGridView_mgv_text_size, textSize);
+            mFrameWidth = a.getDimension(R.styleable.MonthGridView_mgv_frame_width, mFrameWidth);
+            mDayTextBoxSize = a.getDimension(R.styleable.MonthGridView_mgv_day_size, mDayTextBoxSize);
+            mCirclePadding = a.getDimension(R.styleable.MonthGridView_mgv_circle_padding, mCirclePadding);
+            mNotesPadding = a.getDimension(R.styleable.MonthGridView_mgv_notes_padding, mNotesPadding);
+            mNotesSeparatorWidth = a.getDimension(R.styleable.MonthGridView_mgv_notes_separator_width, mNotesSeparatorWidth);
+            mNumberOfNotes = a.getInteger(R.styleable.MonthGridView_mgv_number_of_notes, mNumberOfNotes);
+            a.recycle();
+        }
+
+        mSpanBars = new SpanBars(dp(4), dp(1), mNotesPadding);
+
+        mNoteColors = new int[NUMBER_OF_CELLS * mNumberOfNotes];
+        mNoteBackgroundColors = new int[NUMBER_OF_CELLS * mNumberOfNotes];
+
+        for (int i = 0 ; i < NUMBER_OF_CELLS ; i++) {
+            mTexts[i] = "";
+            mAlphas[i] = 1f;
+        }
+
+        for (int style = 0 ; style < mTypefaces.length ; style++)
+            mTypefaces[style] = Typeface.create(Typeface.DEFAULT, style);
+
+        mPaint.setStyle(Paint.Style.FILL);
+        mTextPaint.setTextSize(textSize);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mCirclePaint.setStyle(Paint.Style.FILL);
+        mCirclePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_OUT));
+
+        setClickable(true);
+    }
+
+    public int getNumberOfNotes() {
+        return mNumberOfNotes;
+    }
+
+    /**
+     * @return the bars of multi-day objects. Call invalidate() after changing them.
+     */
+    public SpanBars getSpanBars() {
+        return mSpanBars;
+    }
+
+    public void setOnCellClickListener(OnCellClickListener listener) {
+        mOnCellClickListener = listener;
+    }
+
+    /**
+     * Set everything drawn in a cell but its notes.
+     */
+    public void setCell(int position,
+                        String text,
+                        int textColor,
+                        int textStyle,
+                        int backgroundColor,
+                        int frameColor,
+                        int circleColor,
+                        boolean circleEnabled,
+                        float alpha) {
+        mTexts[position] = text;
+        mTextColors[position] = textColor;
+        mTextStyles[position] = textStyle;
+        mBackgroundColors[position] = backgroundColor;
+        mFrameColors[position] = frameColor;
+        mCircleColors[position] = circleColor;
+        mCircleEnabled[position] = circleEnabled;
+        mAlphas[position] = alpha;
+        invalidate();
+    }
+
+    public void clearNotes(int position) {
+        for (int i = 0 ; i < mNumberOfNotes ; i++) {
+            mNoteColors[position * mNumberOfNotes + i] = Color.TRANSPARENT;
+            mNoteBackgroundColors[position * mNumberOfNotes + i] = Color.TRANSPARENT;
+        }
+        invalidate();
+    }
+
+    public void setNote(int position, int note, int color, int backgroundColor) {
+        if (note >= mNumberOfNotes)
+            return;
+        mNoteColors[position * mNumberOfNotes + note] = color;
+        mNoteBackgroundColors[position * mNumberOfNotes + note] = backgroundColor;
+        invalidate();
+    }
+
+    //
+    // View Overrides
+    //
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float cellWidth = (float) getWidth() / NUMBER_OF_COLUMNS;
+        float cellHeight = (float) getHeight() / NUMBER_OF_ROWS;
+
+        for (int position = 0 ; position < NUMBER_OF_CELLS ; position++) {
+            float left = (position % NUMBER_OF_COLUMNS) * cellWidth;
+            float top = (position / NUMBER_OF_COLUMNS) * cellHeight;
+            drawCell(canvas, position, left, top, cellWidth, cellHeight);
+        }
+
+        mSpanBars.draw(canvas, mPaint, cellWidth, cellHeight);
+    }
+
+    private void drawCell(Canvas canvas, int position, float left, float top, float width, float height) {
+        float alpha = mAlphas[position];
+        float right = left + width;
+        float bottom = top + height;
+
+        // Background
+        mPaint.setColor(withAlpha(mBackgroundColors[position], alpha));
+        canvas.drawRect(left, top, right, bottom, mPaint);
+
+        // Frame
+        mPaint.setColor(withAlpha(mFrameColors[position], alpha));
+        if (2 * mFrameWidth < height) {
+            canvas.drawRect(left, top, right, top + mFrameWidth, mPaint);
+            canvas.drawRect(left, bottom - mFrameWidth - 1, right, bottom, mPaint);
+        }
+        if (2 * mFrameWidth < width) {
+            canvas.drawRect(left, top, left + mFrameWidth, bottom, mPaint);
+            canvas.drawRect(right - mFrameWidth - 1, top, right, bottom, mPaint);
+        }
+
+        int save = canvas.save();
+        canvas.clipRect(left + mFrameWidth, top + mFrameWidth, right - mFrameWidth, bottom - mFrameWidth);
+
+        // Day (and current day circle)
+        float cx = left + width / 2f;
+        float cy = top + mDayTextBoxSize / 2f;
+        mTextPaint.setTypeface(mTypefaces[mTextStyles[position] & 3]);
+        float baseline = cy - (mTextPaint.ascent() + mTextPaint.descent()) / 2f;
+
+        if (mCircleEnabled[position]) {
+            // The text is cut out of the circle, which needs a layer of its own. Only the
+            // cell of the current day ever has the circle enabled.
+            float radius = (mDayTextBoxSize - 2 * mCirclePadding) / 2f;
+            int layer = canvas.saveLayerAlpha(
+                    cx - radius, cy - radius, cx + radius, cy + radius,
+                    (int) (alpha * 255), Canvas.ALL_SAVE_FLAG);
+            mTextPaint.setColor(mTextColors[position]);
+            canvas.drawText(mTexts[position], cx, baseline, mTextPaint);
+            mCirclePaint.setColor(mCircleColors[position]);
+            canvas.drawCircle(cx, cy, radius, mCirclePaint);
+            canvas.restoreToCount(layer);
+        }
+        else {
+            mTextPaint.setColor(withAlpha(mTextColors[position], alpha));
+            canvas.drawText(mTexts[position], cx, baseline, mTextPaint);
+        }
+
+        // Notes
+        float notesLeft = left + mNotesPadding;
+        float notesTop = top + mDayTextBoxSize + mNotesPadding;
+        float notesWidth = width - 2 * mNotesPadding;
+        float notesHeight = height - mDayTextBoxSize - 2 * mNotesPadding;
+        float separatorWidthTotal = (mNumberOfNotes - 1) * mNotesSeparatorWidth;
+
+        if (mNumberOfNotes > 0 && notesHeight > separatorWidthTotal) {
+            float noteHeight = (notesHeight - separatorWidthTotal) / mNumberOfNotes;
+            float triangleSize = Math.min(notesWidth, noteHeight);
+
+            float noteTop = notesTop;
+            for (int i = 0 ; i < mNumberOfNotes ; i++) {
+                int note = position * mNumberOfNotes + i;
+
+                if (mNoteBackgroundColors[note] != Color.TRANSPARENT) {
+                    mPaint.setColor(withAlpha(mNoteBackgroundColors[note], alpha));
+                    canvas.drawRect(notesLeft, noteTop, notesLeft + notesWidth, noteTop + noteHeight, mPaint);
+                }
+                if (mNoteColors[note] != Color.TRANSPARENT) {
+                    mTrianglePath.rewind();
+                    mTrianglePath.moveTo(notesLeft, noteTop);
+                    mTrianglePath.lineTo(notesLeft + triangleSize, noteTop);
+                    mTrianglePath.lineTo(notesLeft, noteTop + triangleSize);
+                    mTrianglePath.close();
+                    mPaint.setColor(withAlpha(mNoteColors[note], alpha));
+                    canvas.drawPath(mTrianglePath, mPaint);
+                }
+
+                noteTop = noteTop + noteHeight + mNotesSeparatorWidth;
+            }
+        }
+
+        canvas.restoreToCount(save);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mTouchedCell = getCellAt(event.getX(), event.getY());
+                return mTouchedCell != -1;
+            case MotionEvent.ACTION_UP:
+                if (mTouchedCell != -1 && mTouchedCell == getCellAt(event.getX(), event.getY())) {
+                    mClickedCell = mTouchedCell;
+                    performClick();
+                }
+                mTouchedCell = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mTouchedCell = -1;
+                return true;
+            default:
+                return mTouchedCell != -1;
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        super.performClick();
+
+        if (mClickedCell != -1 && mOnCellClickListener != null)
+            mOnCellClickListener.onCellClick(this, mClickedCell);
+        mClickedCell = -1;
+        return true;
+    }
+
+    private int getCellAt(float x, float y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight())
+            return -1;
+
+        int column = (int) (x * NUMBER_OF_COLUMNS / getWidth());
+        int row = (int) (y * NUMBER_OF_ROWS / getHeight());
+        return row * NUMBER_OF_COLUMNS + column;
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    private static int withAlpha(int color, float alpha) {
+        if (alpha >= 1f)
+            return color;
+        return (color & 0x00FFFFFF) | ((int) ((color >>> 24) * alpha) << 24);
+    }
+
+    public interface OnCellClickListener {
+        void onCellClick(MonthGridView view, int position);
+    }
+}
@@ -6,40 +6,48 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.Point;
 import android.util.AttributeSet;
 import android.view.View;
 
 import org.hugoandrade.calendarviewlib.R;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Column (or row) of triangles, each over its own background. The paths only
+ * depend on the size, padding and direction, so they are built once for each
+ * of those and shared by all views with the same geometry (eg. the day cells
+ * of a month page). Each view only keeps its colors, in two int arrays, and
+ * all views draw with a single Paint.
+ */
 public class MultipleTriangleView extends View {
 
-    private class TriangleAttr {
-
-        private Paint mPaint;
-        private Paint mBackgroundPaint;
-
-        private Path mTrianglePath;
-        private Path mBackgroundPath;
-
-        private Direction mDirection;
-
-        private int mColor;
-        private int mBackgroundColor;
-    }
-
     private static final Direction DEFAULT_DIRECTION = Direction.TOP_LEFT;
     private static final int DEFAULT_COLOR = Color.TRANSPARENT;
     private static final int DEFAULT_BACKGROUND_COLOR = Color.TRANSPARENT;
 
-    private List<TriangleAttr> mTriangleAttr;
+    /**
+     * Paint used by all instances to draw (only on the main thread)
+     */
+    private static final Paint sPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    static {
+        sPaint.setStyle(Paint.Style.FILL);
+    }
+
+    private int[] mColors;
+    private int[] mBackgroundColors;
 
+    private Direction mDirection;
     private float mSeparatorWidth;
     private ViewDirection mViewDirection;
 
+    /**
+     * Shared paths of the current size, padding and direction (null until built)
+     */
+    private Geometry mGeometry;
+
     public MultipleTriangleView(Context context) {
         this(context, null);
     }
@@ -54,7 +62,6 @@ public class MultipleTriangleView extends View {
     }
 
     private void init(AttributeSet attrs) {
-        Direction mDirection;
         int mColor;
         int mBackgroundColor;
         int mNumberOfItems;
@@ -102,26 +109,10 @@ public class MultipleTriangleView extends View {
             mNumberOfItems = 1;
         }
 
-        mTriangleAttr = new ArrayList<>();
-        for (int i = 0 ; i < mNumberOfItems ; i++) {
-            TriangleAttr t = new TriangleAttr();
-
-            t.mDirection = mDirection;
-            t.mBackgroundColor = mBackgroundColor;
-            t.mColor = mColor;
-
-            t.mPaint = new Paint();
-            t.mPaint.setStyle(Paint.Style.FILL);
-            t.mPaint.setColor(t.mColor);
-            t.mPaint.setAntiAlias(true);
-
-            t.mBackgroundPaint = new Paint();
-            t.mBackgroundPaint.setStyle(Paint.Style.FILL);
-            t.mBackgroundPaint.setColor(t.mBackgroundColor);
-            t.mBackgroundPaint.setAntiAlias(true);
-
-            mTriangleAttr.add(t);
-        }
+        mColors = new int[Math.max(0, mNumberOfItems)];
+        mBackgroundColors = new int[mColors.length];
+        Arrays.fill(mColors, mColor);
+        Arrays.fill(mBackgroundColors, mBackgroundColor);
 
         mViewDirection = ViewDirection.VERTICAL;
     }
@@ -167,8 +158,26 @@ public class MultipleTriangleView extends View {
         setMeasuredDimension(width, height);
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mGeometry = null;
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        mGeometry = null;
+    }
+
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        super.setPaddingRelative(start, top, end, bottom);
+        mGeometry = null;
+    }
+
     public int getNumberOfItems() {
-        return mTriangleAttr.size();
+        return mColors.length;
     }
 
     /**
@@ -177,8 +186,9 @@ public class MultipleTriangleView extends View {
      */
     public void setColor(int color) {
         boolean somethingHasChanged = false;
-        for (TriangleAttr t : mTriangleAttr) {
-            somethingHasChanged = somethingHasChanged || setColor(t, color);
+        for (int i = 0 ; i < mColors.length ; i++) {
+            somethingHasChanged |= mColors[i] != color;
+            mColors[i] = color;
         }
 
         if (somethingHasChanged)
@@ -186,34 +196,22 @@ public class MultipleTriangleView extends View {
     }
 
     public boolean setColor(int i, int color) {
-        if (i >= mTriangleAttr.size())
+        if (i >= mColors.length)
             return false;
 
-        boolean somethingHasChanged = setColor(mTriangleAttr.get(i), color);
-
-        if (somethingHasChanged)
+        if (mColors[i] != color) {
+            mColors[i] = color;
             invalidate();
+        }
 
         return true;
     }
 
-    private boolean setColor(TriangleAttr t, int color) {
-        if (t.mColor != color) {
-            t.mColor = color;
-            if (t.mPaint != null) {
-                t.mPaint.setColor(color);
-            }
-            t.mTrianglePath = null;
-            return true;
-        }
-        return false;
-    }
-
     public void setTriangleBackgroundColor(int color) {
         boolean somethingHasChanged = false;
-
-        for (TriangleAttr t : mTriangleAttr) {
-            somethingHasChanged = somethingHasChanged || setTriangleBackgroundColor(t, color);
+        for (int i = 0 ; i < mBackgroundColors.length ; i++) {
+            somethingHasChanged |= mBackgroundColors[i] != color;
+            mBackgroundColors[i] = color;
         }
 
         if (somethingHasChanged)
@@ -221,40 +219,25 @@ public class MultipleTriangleView extends View {
     }
 
     public boolean setTriangleBackgroundColor(int i, int color) {
-        if (i >= mTriangleAttr.size())
+        if (i >= mBackgroundColors.length)
             return false;
 
-        boolean somethingHasChanged = setTriangleBackgroundColor(mTriangleAttr.get(i), color);
-
-        if (somethingHasChanged)
+        if (mBackgroundColors[i] != color) {
+            mBackgroundColors[i] = color;
             invalidate();
+        }
 
         return true;
     }
 
-    private boolean setTriangleBackgroundColor(TriangleAttr t, int color) {
-        if (t.mBackgroundColor != color) {
-            t.mBackgroundColor = color;
-            if (t.mBackgroundPaint != null) {
-                t.mBackgroundPaint.setColor(color);
-            }
-            t.mBackgroundPath = null;
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Set the direction of the triangle.
      * @param direction the direction of the triangle.
      */
     public void setDirection(Direction direction) {
-        for (TriangleAttr t : mTriangleAttr) {
-
-            if (direction != t.mDirection) {
-                t.mDirection = direction;
-                t.mTrianglePath = null;
-            }
+        if (direction != mDirection) {
+            mDirection = direction;
+            mGeometry = null;
         }
         invalidate();
     }
@@ -267,113 +250,183 @@ public class MultipleTriangleView extends View {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (mTriangleAttr.size() < 1)
+        if (mGeometry == null)
+            mGeometry = Geometry.obtain(
+                    getWidth(), getHeight(),
+                    getPaddingStart(), getPaddingTop(), getPaddingEnd(), getPaddingBottom(),
+                    mSeparatorWidth, mColors.length, mViewDirection, mDirection);
+
+        if (mGeometry.isEmpty())
             return;
 
-        float width = getWidth() - getPaddingEnd() - getPaddingStart();
-        float height = getHeight() - getPaddingTop() - getPaddingBottom();
+        for (int i = 0 ; i < mColors.length ; i++) {
+            if (mBackgroundColors[i] != Color.TRANSPARENT) {
+                sPaint.setColor(mBackgroundColors[i]);
+                canvas.drawPath(mGeometry.backgroundPaths[i], sPaint);
+            }
+            if (mColors[i] != Color.TRANSPARENT) {
+                sPaint.setColor(mColors[i]);
+                canvas.drawPath(mGeometry.trianglePaths[i], sPaint);
+            }
+        }
+    }
+
+    /**
+     * Paths of the triangles (and their backgrounds) of a given size, padding, number
+     * of items and directions. Immutable once built, and shared by all views with the
+     * same values.
+     */
+    private static class Geometry {
+
+        /**
+         * Geometries built lately (a page of day cells only needs one)
+         */
+        private static final int MAX_CACHED_GEOMETRIES = 4;
+        private static final List<Geometry> sCache = new ArrayList<>();
+
+        private final int width;
+        private final int height;
+        private final int paddingStart;
+        private final int paddingTop;
+        private final int paddingEnd;
+        private final int paddingBottom;
+        private final float separatorWidth;
+        private final ViewDirection viewDirection;
+        private final Direction direction;
+
+        private final Path[] trianglePaths;
+        private final Path[] backgroundPaths;
+
+        static Geometry obtain(int width, int height,
+                               int paddingStart, int paddingTop, int paddingEnd, int paddingBottom,
+                               float separatorWidth, int numberOfItems,
+                               ViewDirection viewDirection, Direction direction) {
+            for (int i = 0 ; i < sCache.size() ; i++) {
+                Geometry geometry = sCache.get(i);
+                if (geometry.width == width && geometry.height == height
+                        && geometry.paddingStart == paddingStart && geometry.paddingTop == paddingTop
+                        && geometry.paddingEnd == paddingEnd && geometry.paddingBottom == paddingBottom
+                        && geometry.separatorWidth == separatorWidth
+                        && geometry.trianglePaths.length == numberOfItems
+                        && geometry.viewDirection == viewDirection && geometry.direction == direction)
+                    return geometry;
+            }
+
+            Geometry geometry = new Geometry(width, height,
+                    paddingStart, paddingTop, paddingEnd, paddingBottom,
+                    separatorWidth, numberOfItems, viewDirection, direction);
+            if (sCache.size() == MAX_CACHED_GEOMETRIES)
+                sCache.remove(0);
+            sCache.add(geometry);
+            return geometry;
+        }
 
-        float separatorWidthTotal = (mTriangleAttr.size() - 1) * mSeparatorWidth;
+        private Geometry(int width, int height,
+                         int paddingStart, int paddingTop, int paddingEnd, int paddingBottom,
+                         float separatorWidth, int numberOfItems,
+                         ViewDirection viewDirection, Direction direction) {
+            this.width = width;
+            this.height = height;
+            this.paddingStart = paddingStart;
+            this.paddingTop = paddingTop;
+            this.paddingEnd = paddingEnd;
+            this.paddingBottom = paddingBottom;
+            this.separatorWidth = separatorWidth;
+            this.viewDirection = viewDirection;
+            this.direction = direction;
+
+            trianglePaths = new Path[numberOfItems];
+            backgroundPaths = new Path[numberOfItems];
+            build();
+        }
 
+        boolean isEmpty() {
+            return trianglePaths.length == 0 || trianglePaths[0] == null;
+        }
 
-        if (mViewDirection == ViewDirection.VERTICAL) {
-            if (separatorWidthTotal > width)
+        private void build() {
+            if (trianglePaths.length < 1)
                 return;
 
-            float iheight = (height - separatorWidthTotal) / mTriangleAttr.size();
+            float contentWidth = width - paddingEnd - paddingStart;
+            float contentHeight = height - paddingTop - paddingBottom;
 
-            float startX = getPaddingStart();
-            float startY = getPaddingTop();
+            float separatorWidthTotal = (trianglePaths.length - 1) * separatorWidth;
 
-            for (TriangleAttr t : mTriangleAttr) {
-                canvas.drawPath(getBackgroundPath(t, startX, startY, width, iheight), t.mBackgroundPaint);
-                canvas.drawPath(getTrianglePath(t, startX, startY, width, iheight), t.mPaint);
-
-                startY = startY + iheight + mSeparatorWidth;
-            }
-        }
-        else {
-            if (separatorWidthTotal > height)
-                return;
+            float startX = paddingStart;
+            float startY = paddingTop;
 
-            float iwidth = (width - separatorWidthTotal) / mTriangleAttr.size();
+            if (viewDirection == ViewDirection.VERTICAL) {
+                if (separatorWidthTotal > contentWidth)
+                    return;
 
-            float startX = getPaddingStart();
-            float startY = getPaddingTop();
+                float iheight = (contentHeight - separatorWidthTotal) / trianglePaths.length;
 
-            for (TriangleAttr t : mTriangleAttr) {
-                canvas.drawPath(getBackgroundPath(t, startX, startY, iwidth, height), t.mBackgroundPaint);
-                canvas.drawPath(getTrianglePath(t, startX, startY, iwidth, height), t.mPaint);
+                for (int i = 0 ; i < trianglePaths.length ; i++) {
+                    backgroundPaths[i] = buildBackgroundPath(startX, startY, contentWidth, iheight);
+                    trianglePaths[i] = buildTrianglePath(direction, startX, startY, contentWidth, iheight);
 
-                startX = startX + iwidth + mSeparatorWidth;
+                    startY = startY + iheight + separatorWidth;
+                }
             }
-        }
-    }
+            else {
+                if (separatorWidthTotal > contentHeight)
+                    return;
 
-    private int max(int val1, int val2) {
-        return val1 > val2 ? val1 : val2;
-    }
+                float iwidth = (contentWidth - separatorWidthTotal) / trianglePaths.length;
 
-    private float min(float val1, float val2) {
-        return val1 < val2 ? val1 : val2;
-    }
+                for (int i = 0 ; i < trianglePaths.length ; i++) {
+                    backgroundPaths[i] = buildBackgroundPath(startX, startY, iwidth, contentHeight);
+                    trianglePaths[i] = buildTrianglePath(direction, startX, startY, iwidth, contentHeight);
 
-    private Path getTrianglePath(TriangleAttr t,
-                                 float initX,
-                                 float initY,
-                                 float width,
-                                 float height) {
-        if (t.mTrianglePath == null) {
-            t.mTrianglePath = new Path();
-            Point p1, p2, p3;
-            switch (t.mDirection) {
+                    startX = startX + iwidth + separatorWidth;
+                }
+            }
+        }
+
+        private static Path buildTrianglePath(Direction direction,
+                                              float initX,
+                                              float initY,
+                                              float width,
+                                              float height) {
+            Path path = new Path();
+            float side = Math.min(width, height);
+            switch (direction) {
                 case TOP_LEFT:
-                    p1 = new Point((int)(initX), (int)(initY));
-                    p2 = new Point((int)(initX + Math.min(width, height)), (int)(initY));
-                    p3 = new Point((int)(initX), (int)(initY + Math.min(width, height)));
+                    path.moveTo((int) (initX), (int) (initY));
+                    path.lineTo((int) (initX + side), (int) (initY));
+                    path.lineTo((int) (initX), (int) (initY + side));
                     break;
                 case TOP_RIGHT:
-                    p1 = new Point((int)(initX + width), (int)(initY));
-                    p2 = new Point((int)(initX + width - Math.min(width, height)), (int)(initY));
-                    p3 = new Point((int)(initX + width), (int)(initY + Math.min(width, height)));
+                    path.moveTo((int) (initX + width), (int) (initY));
+                    path.lineTo((int) (initX + width - side), (int) (initY));
+                    path.lineTo((int) (initX + width), (int) (initY + side));
                     break;
                 case BOTTOM_LEFT:
-                    p1 = new Point((int)(initX), (int)(initY + height));
-                    p2 = new Point((int)(initX - Math.min(width, height)), (int)(initY + height));
-                    p3 = new Point((int)(initX), (int)(initY + height - Math.min(width, height)));
+                    path.moveTo((int) (initX), (int) (initY + height));
+                    path.lineTo((int) (initX - side), (int) (initY + height));
+                    path.lineTo((int) (initX), (int) (initY + height - side));
                     break;
                 case BOTTOM_RIGHT:
                 default:
-                    p1 = new Point((int)(initX + width), (int)(initY + height));
-                    p2 = new Point((int)(initX + width), (int)(initY + height - Math.min(width, height)));
-                    p3 = new Point((int)(initX + width - Math.min(width, height)), (int)(initY + height));
+                    path.moveTo((int) (initX + width), (int) (initY + height));
+                    path.lineTo((int) (initX + width), (int) (initY + height - side));
+                    path.lineTo((int) (initX + width - side), (int) (initY + height));
             }
-            t.mTrianglePath.moveTo(p1.x, p1.y);
-            t.mTrianglePath.lineTo(p2.x, p2.y);
-            t.mTrianglePath.lineTo(p3.x, p3.y);
+            return path;
         }
-        return t.mTrianglePath;
-    }
 
-    private Path getBackgroundPath(TriangleAttr t,
-                                   float initX,
-                                   float initY,
-                                   float width,
-                                   float height) {
-        if (t.mBackgroundPath == null) {
-            t.mBackgroundPath = new Path();
-            Point p1, p2, p3, p4;
-            p1 = new Point((int) initX, (int) initY);
-            p2 = new Point((int) initX, (int) (initY + height));
-            p3 = new Point((int) (initX + width), (int) (initY + height));
-            p4 = new Point((int) (initX + width), (int) initY);
-
-            t.mBackgroundPath.moveTo(p1.x, p1.y);
-            t.mBackgroundPath.lineTo(p2.x, p2.y);
-            t.mBackgroundPath.lineTo(p3.x, p3.y);
-            t.mBackgroundPath.lineTo(p4.x, p4.y);
+        private static Path buildBackgroundPath(float initX,
+                                                float initY,
+                                                float width,
+                                                float height) {
+            Path path = new Path();
+            path.moveTo((int) initX, (int) initY);
+            path.lineTo((int) initX, (int) (initY + height));
+            path.lineTo((int) (initX + width), (int) (initY + height));
+            path.lineTo((int) (initX + width), (int) initY);
+            return path;
         }
-        return t.mBackgroundPath;
     }
 
     //
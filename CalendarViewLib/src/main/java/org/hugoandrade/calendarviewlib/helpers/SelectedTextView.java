@@ -11,6 +11,11 @@ import android.util.AttributeSet;
 
 import org.hugoandrade.calendarviewlib.R;
 
+/**
+ * TextView that can cut its text out of a circle drawn behind it (the current
+ * day). The cut-out (SRC_OUT) needs an offscreen layer, so the view only holds
+ * a hardware layer while the circle is enabled, ie. a single cell per page.
+ */
 public class SelectedTextView extends android.support.v7.widget.AppCompatTextView {
 
     private boolean mEnable;
@@ -77,7 +82,7 @@ public class SelectedTextView extends android.support.v7.widget.AppCompatTextVie
         mCy = -1;
 
         setWillNotDraw(false);
-        setLayerType(LAYER_TYPE_HARDWARE, null);
+        updateLayerType();
 
         mPaint = new Paint();
         mPaint.setColor(mSelectedColor);
@@ -98,10 +103,17 @@ public class SelectedTextView extends android.support.v7.widget.AppCompatTextVie
     public void setSelectedEnabled(boolean enable) {
         if (mEnable != enable) {
             mEnable = enable;
+            updateLayerType();
         }
         invalidate();
     }
 
+    private void updateLayerType() {
+        int layerType = mEnable ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE;
+        if (getLayerType() != layerType)
+            setLayerType(layerType, null);
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
@@ -0,0 +1,75 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Map of int keys to objects, kept in two arrays sorted by key and searched by
+ * binary search (as android.util.SparseArray, with no boxing of the keys). Free of
+ * Android classes, so it can run on a plain JVM.
+ */
+public final class SortedIntMap<E> {
+
+    private int[] mKeys = new int[4];
+    private Object[] mValues = new Object[4];
+    private int mSize;
+
+    /**
+     * @return the value of the given key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int key) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return index < 0 ? null : (E) mValues[index];
+    }
+
+    public void put(int key, E value) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+
+        index = ~index;
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSize++;
+    }
+
+    public void remove(int key) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index < 0)
+            return;
+
+        mSize--;
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index);
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index);
+        mValues[mSize] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, 0, mSize, null);
+        mSize = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return the key at the given index (0 to size - 1), in ascending order of keys
+     */
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        return (E) mValues[index];
+    }
+}
@@ -0,0 +1,46 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Set of ints kept in an array sorted in ascending order and searched by binary
+ * search (as the keys of an android.util.SparseBooleanArray). Free of Android
+ * classes, so it can run on a plain JVM.
+ */
+public final class SortedIntSet {
+
+    private int[] mValues = new int[4];
+    private int mSize;
+
+    public void add(int value) {
+        int index = Arrays.binarySearch(mValues, 0, mSize, value);
+        if (index >= 0)
+            return;
+
+        index = ~index;
+        if (mSize == mValues.length)
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(mValues, 0, mSize, value) >= 0;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return the value at the given index (0 to size - 1), in ascending order
+     */
+    public int get(int index) {
+        return mValues[index];
+    }
+}
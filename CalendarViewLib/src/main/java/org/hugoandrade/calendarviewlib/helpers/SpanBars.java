@@ -0,0 +1,81 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * Bars drawn across the day cells of a month grid (one segment per week row)
+ * for calendar objects that span several days. Each bar has a lane, counted
+ * from the bottom of the cells, so overlapping bars are stacked.
+ */
+public class SpanBars {
+
+    public static final int MAX_LANES = 3;
+
+    private int mSize;
+    private int[] mRows = new int[0];
+    private int[] mStartColumns = new int[0];
+    private int[] mEndColumns = new int[0];
+    private int[] mLanes = new int[0];
+    private int[] mColors = new int[0];
+    /**
+     * Whether the bar starts (ends) in this segment, ie. has a rounded-off start (end)
+     */
+    private boolean[] mStarts = new boolean[0];
+    private boolean[] mEnds = new boolean[0];
+
+    private float mBarHeight;
+    private float mBarSpacing;
+    private float mPadding;
+
+    public SpanBars(float barHeight, float barSpacing, float padding) {
+        mBarHeight = barHeight;
+        mBarSpacing = barSpacing;
+        mPadding = padding;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void add(int row, int startColumn, int endColumn, int lane, int color, boolean starts, boolean ends) {
+        if (mSize == mRows.length) {
+            int capacity = Math.max(8, mSize * 2);
+            mRows = Arrays.copyOf(mRows, capacity);
+            mStartColumns = Arrays.copyOf(mStartColumns, capacity);
+            mEndColumns = Arrays.copyOf(mEndColumns, capacity);
+            mLanes = Arrays.copyOf(mLanes, capacity);
+            mColors = Arrays.copyOf(mColors, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+        }
+        mRows[mSize] = row;
+        mStartColumns[mSize] = startColumn;
+        mEndColumns[mSize] = endColumn;
+        mLanes[mSize] = lane;
+        mColors[mSize] = color;
+        mStarts[mSize] = starts;
+        mEnds[mSize] = ends;
+        mSize++;
+    }
+
+    /**
+     * Draw the bars on a grid whose cells have the given size
+     */
+    public void draw(Canvas canvas, Paint paint, float cellWidth, float cellHeight) {
+        for (int i = 0 ; i < mSize ; i++) {
+            float bottom = (mRows[i] + 1) * cellHeight - mPadding - mLanes[i] * (mBarHeight + mBarSpacing);
+            float left = mStartColumns[i] * cellWidth + (mStarts[i] ? mPadding : 0);
+            float right = (mEndColumns[i] + 1) * cellWidth - (mEnds[i] ? mPadding : 0);
+
+            paint.setColor(mColors[i]);
+            canvas.drawRect(left, bottom - mBarHeight, right, bottom, paint);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * Transparent overlay of a month grid (of 6x7 day cells) that draws the
+ * SpanBars of the month. It does not handle touches, so the day cells
+ * below it still get their clicks.
+ */
+public class SpanBarsView extends View {
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private SpanBars mSpanBars;
+
+    public SpanBarsView(Context context) {
+        this(context, null);
+    }
+
+    public SpanBarsView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SpanBarsView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mPaint.setStyle(Paint.Style.FILL);
+        mSpanBars = new SpanBars(dp(4), dp(1), dp(2));
+    }
+
+    public SpanBars getSpanBars() {
+        return mSpanBars;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        mSpanBars.draw(canvas, mPaint,
+                (float) getWidth() / MonthGridView.NUMBER_OF_COLUMNS,
+                (float) getHeight() / MonthGridView.NUMBER_OF_ROWS);
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+}
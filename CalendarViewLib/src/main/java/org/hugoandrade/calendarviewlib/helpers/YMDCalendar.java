@@ -54,6 +54,18 @@ public class YMDCalendar {
         return c;
     }
 
+    /**
+     * @return yyyymm (type 1) or mmdd (type 2) of the given date, with 0-based months, or -1
+     */
+    public static int getDateCode(YMDCalendar c, int type) {
+        if (type == 1)
+            return c.year * 100 + c.month;
+        else if (type == 2)
+            return c.month * 100 + c.day;
+        else
+            return -1;
+    }
+
     public boolean isAfter(YMDCalendar ymdCalendar) {
         return hashCode() > ymdCalendar.hashCode();
     }
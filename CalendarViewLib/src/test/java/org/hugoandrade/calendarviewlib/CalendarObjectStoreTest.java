@@ -0,0 +1,347 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.hugoandrade.calendarviewlib.helpers.SortedIntSet;
+import org.hugoandrade.calendarviewlib.helpers.YMDCalendar;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class CalendarObjectStoreTest {
+
+    @Test
+    public void setAllSortsByDatetimeAndKeepsTiesInListOrder() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("c", 2019, 3, 5, 18, 0),
+                create("a", 2019, 3, 5, 9, 30),
+                create("b1", 2019, 3, 5, 12, 0),
+                create("b2", 2019, 3, 5, 12, 0),
+                create("other day", 2019, 3, 6, 0, 0)));
+
+        assertEquals(Arrays.asList("a", "b1", "b2", "c"), getIDs(store, 2019, 3, 5));
+        assertEquals(Collections.singletonList("other day"), getIDs(store, 2019, 3, 6));
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    public void addInsertsAfterObjectsWithTheSameDatetime() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.add(create("b1", 2019, 3, 5, 12, 0));
+        store.add(create("c", 2019, 3, 5, 18, 0));
+        store.add(create("a", 2019, 3, 5, 9, 30));
+        store.add(create("b2", 2019, 3, 5, 12, 0));
+
+        assertEquals(Arrays.asList("a", "b1", "b2", "c"), getIDs(store, 2019, 3, 5));
+    }
+
+    @Test
+    public void addAllMergesIntoTheMonths() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 9, 0),
+                create("c", 2019, 3, 5, 18, 0)));
+        store.addAll(Arrays.asList(
+                create("d", 2019, 4, 1, 8, 0),
+                create("b", 2019, 3, 5, 12, 0),
+                create("a2", 2019, 3, 5, 9, 0)));
+
+        assertEquals(Arrays.asList("a", "a2", "b", "c"), getIDs(store, 2019, 3, 5));
+        assertEquals(Collections.singletonList("d"), getIDs(store, 2019, 4, 1));
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    public void removeAllFindsTheObjectsByID() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 9, 0),
+                create("b", 2019, 3, 5, 10, 0),
+                create("c", 2019, 3, 20, 9, 0),
+                create("d", 2019, 7, 1, 9, 0)));
+
+        List<CalendarObject> removed = store.removeAll(Arrays.asList("a", "c", "d", "unknown"));
+
+        assertEquals(3, removed.size());
+        assertNull(store.get("a"));
+        assertNull(store.get("d"));
+        assertEquals(1, store.size());
+        assertEquals(Collections.singletonList("b"), getIDs(store, 2019, 3, 5));
+        assertEquals(Collections.<String>emptyList(), getIDs(store, 2019, 3, 20));
+    }
+
+    @Test
+    public void monthsAreBucketedByYearAndMonth() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("march", 2019, 2, 31, 23, 59),
+                create("april", 2019, 3, 1, 0, 0),
+                create("april 2020", 2020, 3, 1, 0, 0)));
+
+        assertEquals(1, store.getMonth(201902).size);
+        assertEquals("april", store.getMonth(201903).get(0).getID());
+        assertEquals(1, store.getMonth(202003).size);
+        assertEquals(0, store.getMonth(201904).size);
+    }
+
+    @Test
+    public void removeFindsAnObjectByIDAlone() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 9, 0),
+                create("b", 2019, 3, 20, 9, 0)));
+
+        assertEquals("a", store.remove("a").getID());
+        assertNull(store.remove("a"));
+        assertNull(store.get("a"));
+        assertEquals("b", store.get("b").getID());
+        assertEquals(1, store.size());
+        assertEquals(Collections.<String>emptyList(), getIDs(store, 2019, 3, 5));
+    }
+
+    @Test
+    public void setLoadedMonthReplacesOnlyTheObjectsLoadedForThatMonth() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("march", 2019, 2, 10, 9, 0),
+                create("april", 2019, 3, 10, 9, 0)));
+
+        assertEquals(1, store.setLoadedMonth(201903, Arrays.asList(
+                create("april 2", 2019, 3, 11, 9, 0),
+                create("may", 2019, 4, 11, 9, 0))));
+
+        assertEquals(Collections.singletonList("march"), getIDs(store, 2019, 2, 10));
+        assertEquals(Collections.singletonList("april"), getIDs(store, 2019, 3, 10));
+        assertEquals(Collections.singletonList("april 2"), getIDs(store, 2019, 3, 11));
+        assertEquals(Collections.<String>emptyList(), getIDs(store, 2019, 4, 11));
+        assertEquals(3, store.size());
+
+        store.setLoadedMonth(201903, Collections.singletonList(create("april 3", 2019, 3, 10, 9, 0)));
+        assertEquals(Arrays.asList("april", "april 3"), getIDs(store, 2019, 3, 10));
+        assertEquals(Collections.<String>emptyList(), getIDs(store, 2019, 3, 11));
+        assertNull(store.get("april 2"));
+
+        store.removeLoadedMonth(201903);
+        assertEquals(Collections.singletonList("april"), getIDs(store, 2019, 3, 10));
+        assertNull(store.get("april 3"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void dirtyDaysAreTheDaysWhoseObjectsDiffer() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 9, 0),
+                create("b", 2019, 3, 20, 9, 0),
+                create("c", 2019, 5, 1, 9, 0)));
+
+        CalendarObjectStore otherStore = new CalendarObjectStore();
+        otherStore.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 9, 0),
+                create("b", 2019, 3, 21, 9, 0),
+                create("d", 2019, 5, 1, 9, 0)));
+
+        SortedIntSet dirtyDays = store.getDirtyDays(otherStore);
+        assertEquals(2, dirtyDays.size());
+        assertEquals(EpochDay.of(2019, 3, 20), dirtyDays.get(0));
+        assertEquals(EpochDay.of(2019, 3, 21), dirtyDays.get(1));
+        assertEquals(0, store.getDirtyDays(store).size());
+    }
+
+    @Test
+    public void dayIndexFollowsAddsAndRemoves() {
+        Random random = new Random(7);
+        CalendarObjectStore store = new CalendarObjectStore();
+        List<CalendarObject> calendarObjectList = new ArrayList<>();
+        for (int i = 0 ; i < 500 ; i++) {
+            if (calendarObjectList.isEmpty() || random.nextInt(3) != 0) {
+                CalendarObject calendarObject = createRandom(random, "id" + i);
+                calendarObjectList.add(calendarObject);
+                store.add(calendarObject);
+            }
+            else {
+                CalendarObject calendarObject = calendarObjectList.remove(random.nextInt(calendarObjectList.size()));
+                assertNotNull(store.remove(calendarObject.getID()));
+            }
+        }
+
+        for (int month = 0 ; month < 3 ; month++) {
+            CalendarObjectStore.Month bucket = store.getMonth(201900 + month);
+            for (int day = 1 ; day <= 31 ; day++) {
+                int count = 0;
+                for (CalendarObject calendarObject : calendarObjectList)
+                    if (calendarObject.getDatetime().get(Calendar.MONTH) == month
+                            && calendarObject.getDatetime().get(Calendar.DAY_OF_MONTH) == day)
+                        count++;
+                assertEquals(count, bucket.indexOfDay(day + 1) - bucket.indexOfDay(day));
+                for (int i = bucket.indexOfDay(day) ; i < bucket.indexOfDay(day + 1) ; i++)
+                    assertEquals(day, EpochDay.dayOfMonth(bucket.epochDays[i]));
+            }
+        }
+    }
+
+    @Test
+    public void getReturnsObjectsWithTheValuesThatWereAdded() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        Calendar datetime = Calendar.getInstance();
+        datetime.clear();
+        datetime.set(2019, 3, 5, 9, 30);
+        CalendarObject calendarObject = new CalendarObject("a", datetime, 1, 2);
+        store.setAll(Collections.singletonList(calendarObject));
+
+        assertSameValues(calendarObject, store.get("a"));
+        assertSameValues(calendarObject, store.getDay(new YMDCalendar(5, 3, 2019)).get(0));
+    }
+
+    @Test
+    public void keptObjectsAreReturnedAsTheyWereAdded() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setKeepObjects(true);
+        CalendarObject calendarObject = create("a", 2019, 3, 5, 9, 0);
+        store.setAll(Collections.singletonList(calendarObject));
+
+        assertSame(calendarObject, store.get("a"));
+        assertSame(calendarObject, store.getDay(new YMDCalendar(5, 3, 2019)).get(0));
+
+        // Same content, another instance: only the kept reference changes
+        CalendarObject sameContent = create("a", 2019, 3, 5, 9, 0);
+        CalendarObjectStore.Diff diff = store.diff(Collections.singletonList(sameContent));
+        assertEquals(0, diff.size());
+        store.apply(diff, Collections.singletonList(sameContent));
+        assertSame(sameContent, store.get("a"));
+        assertSame(sameContent, store.remove("a"));
+    }
+
+    @Test
+    public void diffAndApplyMatchSettingTheNewList() {
+        Random random = new Random(42);
+        for (int round = 0 ; round < 100 ; round++) {
+            List<CalendarObject> calendarObjectList = createRandom(random, random.nextInt(80), 0);
+            boolean keepObjects = round % 2 == 0;
+            CalendarObjectStore store = new CalendarObjectStore();
+            store.setKeepObjects(keepObjects);
+            store.setAll(calendarObjectList);
+
+            // Drop, move and add some objects
+            List<CalendarObject> newCalendarObjectList = new ArrayList<>();
+            for (CalendarObject calendarObject : calendarObjectList) {
+                int change = random.nextInt(10);
+                if (change == 0)
+                    continue;
+                if (change == 1)
+                    calendarObject = createRandom(random, calendarObject.getID());
+                newCalendarObjectList.add(calendarObject);
+            }
+            newCalendarObjectList.addAll(createRandom(random, random.nextInt(5), 1000));
+
+            CalendarObjectStore.Diff diff = store.diff(newCalendarObjectList);
+            store.apply(diff, newCalendarObjectList);
+
+            CalendarObjectStore expectedStore = new CalendarObjectStore();
+            expectedStore.setAll(newCalendarObjectList);
+            assertEquals(expectedStore.size(), store.size());
+            for (int month = 0 ; month < 3 ; month++)
+                assertSameMonth(expectedStore.getMonth(201900 + month), store.getMonth(201900 + month));
+            for (CalendarObject calendarObject : newCalendarObjectList) {
+                if (keepObjects)
+                    assertSame(calendarObject, store.get(calendarObject.getID()));
+                else
+                    assertSameValues(calendarObject, store.get(calendarObject.getID()));
+            }
+        }
+    }
+
+    @Test
+    public void applyRemovesOnlyTheObjectsWithTheSameIDAndContent() {
+        CalendarObject red = new CalendarObject("a", create(null, 2019, 3, 5, 9, 0).getDatetime(), 1, 0);
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(Arrays.asList(
+                create("a", 2019, 3, 5, 8, 0),
+                create(null, 2019, 3, 5, 9, 0),
+                red,
+                create("b", 2019, 3, 5, 9, 0),
+                create("c", 2019, 3, 6, 9, 0)));
+
+        // A small diff, applied object by object
+        List<CalendarObject> newCalendarObjectList = Arrays.asList(
+                create("a", 2019, 3, 5, 8, 0),
+                create("b", 2019, 3, 5, 9, 0),
+                create("c", 2019, 3, 6, 9, 0));
+        CalendarObjectStore.Diff diff = store.diff(newCalendarObjectList);
+        assertEquals(2, diff.removed.size());
+        store.apply(diff, newCalendarObjectList);
+
+        assertEquals(3, store.size());
+        assertEquals(Arrays.asList("a", "b"), getIDs(store, 2019, 3, 5));
+        assertEquals(0, store.get("a").getPrimaryColor());
+        assertEquals(Collections.singletonList("c"), getIDs(store, 2019, 3, 6));
+    }
+
+    private static List<String> getIDs(CalendarObjectStore store, int year, int month, int day) {
+        List<String> ids = new ArrayList<>();
+        for (CalendarObject calendarObject : store.getDay(new YMDCalendar(day, month, year)))
+            ids.add(calendarObject.getID());
+        return ids;
+    }
+
+    /**
+     * Check both months have the same datetimes in the same order, and the same IDs
+     * (objects with the same datetime may be in any order)
+     */
+    private static void assertSameMonth(CalendarObjectStore.Month expected, CalendarObjectStore.Month actual) {
+        assertEquals(expected.size, actual.size);
+        Set<String> expectedIDs = new HashSet<>();
+        Set<String> actualIDs = new HashSet<>();
+        for (int i = 0 ; i < expected.size ; i++) {
+            assertEquals(expected.epochDays[i], actual.epochDays[i]);
+            assertEquals(expected.minutesOfDay[i], actual.minutesOfDay[i]);
+            expectedIDs.add(expected.ids[i]);
+            actualIDs.add(actual.ids[i]);
+        }
+        assertEquals(expectedIDs, actualIDs);
+    }
+
+    private static void assertSameValues(CalendarObject expected, CalendarObject actual) {
+        assertEquals(expected.getID(), actual.getID());
+        assertEquals(expected.getDatetime().getTimeInMillis(), actual.getDatetime().getTimeInMillis());
+        assertEquals(expected.getPrimaryColor(), actual.getPrimaryColor());
+        assertEquals(expected.getSecondaryColor(), actual.getSecondaryColor());
+    }
+
+    private static List<CalendarObject> createRandom(Random random, int count, int firstID) {
+        List<CalendarObject> calendarObjectList = new ArrayList<>();
+        for (int i = 0 ; i < count ; i++)
+            calendarObjectList.add(createRandom(random, "id" + (firstID + i)));
+        return calendarObjectList;
+    }
+
+    private static CalendarObject createRandom(Random random, String id) {
+        // Few distinct hours, so that many objects share a datetime
+        return create(id, 2019, random.nextInt(3), 1 + random.nextInt(28), random.nextInt(4), 0);
+    }
+
+    private static CalendarObject create(String id, int year, int month, int day, int hour, int minute) {
+        Calendar datetime = Calendar.getInstance();
+        datetime.clear();
+        datetime.set(year, month, day, hour, minute);
+        return new CalendarObject(id, datetime, 0, 0);
+    }
+}
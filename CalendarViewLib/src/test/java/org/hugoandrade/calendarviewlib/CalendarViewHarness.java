@@ -0,0 +1,112 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.app.Activity;
+import android.support.v4.view.ViewPager;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * A CalendarView attached to the window of a Robolectric activity, with helpers
+ * to swipe through its months and run what it posted on the main thread
+ */
+class CalendarViewHarness {
+
+    final Activity activity;
+    final CalendarView calendarView;
+    final ViewPager viewPager;
+
+    CalendarViewHarness() {
+        this(null);
+    }
+
+    /**
+     * @param attrs XML attributes of the CalendarView (eg. built with Robolectric.buildAttributeSet)
+     */
+    CalendarViewHarness(AttributeSet attrs) {
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class);
+        activity = controller.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        controller.setup();
+
+        calendarView = new CalendarView(activity, attrs);
+        activity.setContentView(calendarView);
+        viewPager = calendarView.findViewById(R.id.view_pager);
+        idle();
+    }
+
+    /**
+     * Move the given number of months (backwards if negative), one at a time
+     */
+    void swipe(int months) {
+        int step = months < 0 ? -1 : 1;
+        for (int i = 0 ; i != months ; i += step) {
+            viewPager.setCurrentItem(viewPager.getCurrentItem() + step, false);
+            idle();
+        }
+    }
+
+    /**
+     * Queue what is posted to the main thread (from any thread) until 'idle' runs it
+     */
+    void pause() {
+        ShadowLooper.pauseMainLooper();
+    }
+
+    /**
+     * Run the tasks posted on the main thread, including the ones of the next frames
+     */
+    void idle() {
+        ShadowLooper.unPauseMainLooper();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    /**
+     * @return the live page that shows the given month (0-based), or null. The pages
+     * are told apart by the day numbers of their cells, which start on Monday by default.
+     */
+    View findPage(int year, int month) {
+        int firstDay = EpochDay.firstDayOfGrid(year, month, Calendar.MONDAY);
+        for (int p = 0 ; p < viewPager.getChildCount() ; p++) {
+            View page = viewPager.getChildAt(p);
+            List<TextView> dayTextViews = getDayTextViews(page);
+            boolean isMonth = dayTextViews.size() == 42;
+            for (int i = 0 ; i < dayTextViews.size() && isMonth ; i++)
+                isMonth = String.valueOf(EpochDay.dayOfMonth(firstDay + i))
+                        .equals(dayTextViews.get(i).getText().toString());
+            if (isMonth)
+                return page;
+        }
+        return null;
+    }
+
+    /**
+     * @return the day number views of the cells of a page, row by row
+     */
+    static List<TextView> getDayTextViews(View page) {
+        List<TextView> dayTextViews = new ArrayList<>();
+        addDayTextViews(page, dayTextViews);
+        return dayTextViews;
+    }
+
+    private static void addDayTextViews(View view, List<TextView> dayTextViews) {
+        if (view.getId() == R.id.tv_calendar_day)
+            dayTextViews.add((TextView) view);
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0 ; i < viewGroup.getChildCount() ; i++)
+                addDayTextViews(viewGroup.getChildAt(i), dayTextViews);
+        }
+    }
+}
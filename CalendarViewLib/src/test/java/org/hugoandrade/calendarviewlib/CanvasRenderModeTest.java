@@ -0,0 +1,52 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.View;
+
+import org.hugoandrade.calendarviewlib.helpers.MonthGridView;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class CanvasRenderModeTest {
+
+    @Test
+    public void renderModeIsSelectedFromXml() {
+        CalendarViewHarness harness = new CalendarViewHarness(Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.render_mode, "canvas")
+                .build());
+
+        assertTrue(harness.viewPager.getChildCount() > 0);
+        for (int p = 0 ; p < harness.viewPager.getChildCount() ; p++) {
+            View page = harness.viewPager.getChildAt(p);
+            assertTrue(page.findViewById(R.id.ll_calendar_container) instanceof MonthGridView);
+            assertEquals(0, CalendarViewHarness.getDayTextViews(page).size());
+        }
+    }
+
+    @Test
+    public void canvasPagesHaveFewerViews() {
+        int viewsPerPage = getViewsPerPage(new CalendarViewHarness());
+        int canvasViewsPerPage = getViewsPerPage(new CalendarViewHarness(Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.render_mode, "canvas")
+                .build()));
+
+        // One view for the 42 cells, instead of 3 per cell
+        assertTrue(viewsPerPage + " vs " + canvasViewsPerPage,
+                canvasViewsPerPage + 3 * MonthGridView.NUMBER_OF_CELLS <= viewsPerPage + 1);
+    }
+
+    private static int getViewsPerPage(CalendarViewHarness harness) {
+        harness.calendarView.setMonthViewPoolSize(0);
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setEnabled(true);
+        harness.swipe(1);
+        return stats.viewsPerPage;
+    }
+}
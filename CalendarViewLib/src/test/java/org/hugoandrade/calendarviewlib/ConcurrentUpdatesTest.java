@@ -0,0 +1,252 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class ConcurrentUpdatesTest {
+
+    private static final int WRITERS = 8;
+    private static final int BATCHES_PER_WRITER = 50;
+    private static final int OBJECTS_PER_BATCH = 10;
+    private static final int LISTS_PER_WRITER = 50;
+    private static final int OBJECTS_PER_LIST = 10;
+
+    @Test
+    public void listsPostedFromSeveralThreadsLeaveOneWholeList() throws InterruptedException {
+        final CalendarViewHarness harness = new CalendarViewHarness();
+        harness.pause();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0 ; w < WRITERS ; w++) {
+            final int writer = w;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    for (int l = 0 ; l < LISTS_PER_WRITER ; l++) {
+                        List<CalendarView.CalendarObject> calendarObjectList = new ArrayList<>();
+                        for (int i = 0 ; i < OBJECTS_PER_LIST ; i++)
+                            calendarObjectList.add(createCalendarObject(getID(writer, l, i), l + i));
+                        harness.calendarView.postCalendarObjectList(calendarObjectList);
+                    }
+                }
+            });
+            thread.start();
+            writers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : writers)
+            thread.join();
+        harness.idle();
+
+        // All the objects of a single list, never a mix of lists
+        String shownList = null;
+        int shownObjects = 0;
+        for (int w = 0 ; w < WRITERS ; w++) {
+            for (int l = 0 ; l < LISTS_PER_WRITER ; l++) {
+                for (int i = 0 ; i < OBJECTS_PER_LIST ; i++) {
+                    if (harness.calendarView.getCalendarObjectByID(getID(w, l, i)) == null)
+                        continue;
+                    if (shownList == null)
+                        shownList = getID(w, l, 0);
+                    assertEquals(shownList, getID(w, l, 0));
+                    shownObjects++;
+                }
+            }
+        }
+        assertEquals(OBJECTS_PER_LIST, shownObjects);
+    }
+
+    @Test
+    public void batchesCommittedFromSeveralThreadsAreAllApplied() throws InterruptedException {
+        final CalendarViewHarness harness = new CalendarViewHarness();
+        harness.pause();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0 ; w < WRITERS ; w++) {
+            final int writer = w;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    for (int b = 0 ; b < BATCHES_PER_WRITER ; b++) {
+                        CalendarView.BatchEditor batchEditor = harness.calendarView.beginBatchEdit();
+                        for (int i = 0 ; i < OBJECTS_PER_BATCH ; i++)
+                            batchEditor.add(createCalendarObject(getID(writer, b, i), b + i));
+                        // Remove the first object of the previous batch of this writer
+                        if (b > 0)
+                            batchEditor.removeByID(getID(writer, b - 1, 0));
+                        batchEditor.commit();
+                    }
+                }
+            });
+            thread.start();
+            writers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : writers)
+            thread.join();
+        harness.idle();
+
+        for (int w = 0 ; w < WRITERS ; w++) {
+            for (int b = 0 ; b < BATCHES_PER_WRITER ; b++) {
+                for (int i = 0 ; i < OBJECTS_PER_BATCH ; i++) {
+                    String id = getID(w, b, i);
+                    boolean removed = i == 0 && b < BATCHES_PER_WRITER - 1;
+                    if (removed)
+                        assertNull(id, harness.calendarView.getCalendarObjectByID(id));
+                    else
+                        assertNotNull(id, harness.calendarView.getCalendarObjectByID(id));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchCommittedAfterPostIsNotOverwritten() throws InterruptedException {
+        final CalendarViewHarness harness = new CalendarViewHarness();
+        harness.pause();
+
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                harness.calendarView.postCalendarObjectList(
+                        Collections.singletonList(createCalendarObject("posted", 0)));
+            }
+        });
+        poster.start();
+        poster.join();
+
+        // Committed on the main thread before the posted list is applied
+        harness.calendarView.addCalendarObject(createCalendarObject("added", 1));
+        harness.idle();
+
+        assertNotNull(harness.calendarView.getCalendarObjectByID("posted"));
+        assertNotNull(harness.calendarView.getCalendarObjectByID("added"));
+    }
+
+    @Test
+    public void updatesFromAnotherThreadAreAppliedInOrder() throws InterruptedException {
+        final CalendarViewHarness harness = new CalendarViewHarness();
+        harness.pause();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                harness.calendarView.beginBatchEdit()
+                        .add(createCalendarObject("replaced", 0))
+                        .commit();
+                harness.calendarView.postCalendarObjectList(
+                        Collections.singletonList(createCalendarObject("posted", 1)));
+                harness.calendarView.beginBatchEdit()
+                        .add(createCalendarObject("added", 2))
+                        .removeByID("posted")
+                        .commit();
+            }
+        });
+        writer.start();
+        writer.join();
+        harness.idle();
+
+        assertNull(harness.calendarView.getCalendarObjectByID("replaced"));
+        assertNull(harness.calendarView.getCalendarObjectByID("posted"));
+        assertNotNull(harness.calendarView.getCalendarObjectByID("added"));
+    }
+
+    @Test
+    public void setListDiscardsPendingUpdates() throws InterruptedException {
+        final CalendarViewHarness harness = new CalendarViewHarness();
+        harness.pause();
+
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                harness.calendarView.postCalendarObjectList(
+                        Collections.singletonList(createCalendarObject("posted", 0)));
+            }
+        });
+        poster.start();
+        poster.join();
+
+        harness.calendarView.setCalendarObjectList(
+                Collections.singletonList(createCalendarObject("set", 1)));
+        harness.idle();
+
+        assertNull(harness.calendarView.getCalendarObjectByID("posted"));
+        assertNotNull(harness.calendarView.getCalendarObjectByID("set"));
+    }
+
+    /**
+     * Before API 24, a runnable posted by a detached view from another thread was lost
+     */
+    @Test
+    @Config(sdk = 23)
+    public void listPostedWhileDetachedIsAppliedAndLaterListsToo() throws InterruptedException {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        ViewGroup parent = (ViewGroup) harness.calendarView.getParent();
+        parent.removeView(harness.calendarView);
+        harness.idle();
+
+        postFromAnotherThread(harness, "posted while detached");
+        harness.idle();
+        assertNotNull(harness.calendarView.getCalendarObjectByID("posted while detached"));
+
+        parent.addView(harness.calendarView);
+        harness.idle();
+
+        postFromAnotherThread(harness, "posted while attached");
+        harness.idle();
+        assertNull(harness.calendarView.getCalendarObjectByID("posted while detached"));
+        assertNotNull(harness.calendarView.getCalendarObjectByID("posted while attached"));
+    }
+
+    private static void postFromAnotherThread(final CalendarViewHarness harness, final String id)
+            throws InterruptedException {
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                harness.calendarView.postCalendarObjectList(
+                        Collections.singletonList(createCalendarObject(id, 0)));
+            }
+        });
+        poster.start();
+        poster.join();
+    }
+
+    private static CalendarView.CalendarObject createCalendarObject(String id, int days) {
+        Calendar datetime = Calendar.getInstance();
+        datetime.add(Calendar.DAY_OF_MONTH, days % 40);
+        return new CalendarView.CalendarObject(id, datetime, 0, 0);
+    }
+
+    private static String getID(int writer, int batch, int object) {
+        return writer + "-" + batch + "-" + object;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
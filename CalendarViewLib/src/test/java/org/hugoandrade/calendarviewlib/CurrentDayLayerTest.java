@@ -0,0 +1,103 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.hugoandrade.calendarviewlib.helpers.SelectedTextView;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Only the cell of the current day (drawn with a circle) may hold a hardware layer,
+ * instead of every cell of every page
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class CurrentDayLayerTest {
+
+    @Test
+    public void onlyTheCurrentDayHoldsALayer() {
+        CalendarViewHarness harness = createHarness();
+
+        assertTrue(countLayersOfLivePages(harness) >= 1);
+        assertLayersPerPage(harness);
+    }
+
+    @Test
+    public void theLayerFollowsTheCurrentDay() {
+        CalendarViewHarness harness = createHarness();
+
+        Calendar date = Calendar.getInstance();
+        date.set(Calendar.DAY_OF_MONTH, date.get(Calendar.DAY_OF_MONTH) == 1 ? 2 : 1);
+        harness.calendarView.setCurrentDate(date);
+        harness.idle();
+
+        assertTrue(countLayersOfLivePages(harness) >= 1);
+        assertLayersPerPage(harness);
+    }
+
+    @Test
+    public void swipedPagesDoNotHoldLayers() {
+        CalendarViewHarness harness = createHarness();
+
+        // None of the live pages shows the current day
+        harness.swipe(6);
+        assertEquals(0, countLayersOfLivePages(harness));
+
+        harness.swipe(-6);
+        assertTrue(countLayersOfLivePages(harness) >= 1);
+        assertLayersPerPage(harness);
+    }
+
+    @Test
+    public void selectedTextViewHoldsALayerOnlyWhileEnabled() {
+        SelectedTextView textView = new SelectedTextView(createHarness().activity);
+        assertEquals(View.LAYER_TYPE_NONE, textView.getLayerType());
+
+        textView.setSelectedEnabled(true);
+        assertEquals(View.LAYER_TYPE_HARDWARE, textView.getLayerType());
+
+        textView.setSelectedEnabled(false);
+        assertEquals(View.LAYER_TYPE_NONE, textView.getLayerType());
+    }
+
+    private static CalendarViewHarness createHarness() {
+        return new CalendarViewHarness(Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.current_day_circle_enable, "true")
+                .build());
+    }
+
+    private static int countLayersOfLivePages(CalendarViewHarness harness) {
+        int count = 0;
+        for (int i = 0 ; i < harness.viewPager.getChildCount() ; i++)
+            count += countLayers(harness.viewPager.getChildAt(i));
+        return count;
+    }
+
+    /**
+     * The current day is shown at most once per page (but pages also show days of
+     * the months before and after theirs, so possibly by two live pages)
+     */
+    private static void assertLayersPerPage(CalendarViewHarness harness) {
+        for (int i = 0 ; i < harness.viewPager.getChildCount() ; i++)
+            assertTrue(countLayers(harness.viewPager.getChildAt(i)) <= 1);
+    }
+
+    private static int countLayers(View view) {
+        int count = view.getLayerType() == View.LAYER_TYPE_NONE ? 0 : 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0 ; i < viewGroup.getChildCount() ; i++)
+                count += countLayers(viewGroup.getChildAt(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,184 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MonthDataLoaderTest {
+
+    private static final int JANUARY_2019 = EpochDay.monthIndex(2019, Calendar.JANUARY);
+
+    private final CalendarObjectStore mStore = new CalendarObjectStore();
+    private final List<Integer> mRemovedMonths = new ArrayList<>();
+    private final QueueExecutor mExecutor = new QueueExecutor();
+
+    private final MonthDataLoader mLoader = new MonthDataLoader(mStore, new MonthDataLoader.OnMonthLoadedListener() {
+        @Override
+        public void onMonthLoaded(int monthIndex) { }
+
+        @Override
+        public void onMonthRemoved(int monthIndex) {
+            mRemovedMonths.add(monthIndex);
+        }
+    });
+
+    @Test
+    public void evictionRemovesOnlyTheObjectsLoadedForTheMonth() {
+        mStore.setAll(Collections.singletonList(create("added", JANUARY_2019)));
+        mLoader.setDataSource(new DataSource("loaded"), mExecutor);
+        mLoader.setPrefetchDistance(0);
+        mLoader.setMaxLoadedMonths(2);
+
+        // Far enough apart that only the visible month is pinned
+        loadVisible(JANUARY_2019);
+        loadVisible(JANUARY_2019 + 4);
+        assertNotNull(mStore.get(getID("loaded", JANUARY_2019)));
+
+        loadVisible(JANUARY_2019 + 8);
+        assertNull(mStore.get(getID("loaded", JANUARY_2019)));
+        assertNotNull(mStore.get("added"));
+        assertNotNull(mStore.get(getID("loaded", JANUARY_2019 + 4)));
+        assertNotNull(mStore.get(getID("loaded", JANUARY_2019 + 8)));
+        assertEquals(Collections.singletonList(JANUARY_2019), mRemovedMonths);
+        assertEquals(1, mLoader.getStats().getEvictionCount());
+        assertEquals(3, mStore.size());
+    }
+
+    @Test
+    public void pinnedMonthsAreNotEvicted() {
+        mLoader.setDataSource(new DataSource("loaded"), mExecutor);
+        mLoader.setPrefetchDistance(1);
+        mLoader.setMaxLoadedMonths(1);
+
+        // The visible month and its neighbours stay over the budget
+        loadVisible(JANUARY_2019);
+        assertEquals(3, mLoader.getStats().getLoadedMonthCount());
+        for (int m = JANUARY_2019 - 1 ; m <= JANUARY_2019 + 1 ; m++)
+            assertNotNull(mStore.get(getID("loaded", m)));
+
+        // ... until they are no longer pinned (evicted least recently requested first)
+        loadVisible(JANUARY_2019 + 5);
+        assertEquals(3, mLoader.getStats().getLoadedMonthCount());
+        assertEquals(Arrays.asList(JANUARY_2019, JANUARY_2019 - 1, JANUARY_2019 + 1), mRemovedMonths);
+        for (int m = JANUARY_2019 - 1 ; m <= JANUARY_2019 + 1 ; m++)
+            assertNull(mStore.get(getID("loaded", m)));
+        for (int m = JANUARY_2019 + 4 ; m <= JANUARY_2019 + 6 ; m++)
+            assertNotNull(mStore.get(getID("loaded", m)));
+    }
+
+    @Test
+    public void loadsOfAPreviousDataSourceAreDropped() {
+        mStore.setAll(Collections.singletonList(create("added", JANUARY_2019)));
+        mLoader.setDataSource(new DataSource("old"), mExecutor);
+        mLoader.setPrefetchDistance(0);
+        mLoader.loadVisible(JANUARY_2019);
+
+        // Changed while the month is being loaded
+        mLoader.setDataSource(new DataSource("new"), mExecutor);
+        mLoader.loadVisible(JANUARY_2019);
+        mExecutor.runAll();
+        ShadowLooper.runUiThreadTasks();
+
+        assertNull(mStore.get(getID("old", JANUARY_2019)));
+        assertNotNull(mStore.get(getID("new", JANUARY_2019)));
+        assertNotNull(mStore.get("added"));
+        assertEquals(1, mLoader.getStats().getLoadedMonthCount());
+        assertEquals(1, mLoader.getStats().getLoadedObjectCount());
+
+        // Removed with the data source, unlike the objects added by the app
+        mLoader.setDataSource(null, null);
+        assertNull(mStore.get(getID("new", JANUARY_2019)));
+        assertNotNull(mStore.get("added"));
+        assertEquals(1, mStore.size());
+    }
+
+    @Test
+    public void loadsRequestedBeforeTheStoreWasInvalidatedAreDropped() {
+        mLoader.setDataSource(new DataSource("loaded"), mExecutor);
+        mLoader.setPrefetchDistance(0);
+        mLoader.loadVisible(JANUARY_2019);
+
+        // eg. setCalendarObjectList while the month is being loaded, which loads it again
+        mLoader.invalidateLoadedMonths();
+        assertEquals(2, mExecutor.size());
+        mExecutor.runAll();
+        ShadowLooper.runUiThreadTasks();
+
+        assertEquals(1, mStore.size());
+        assertEquals(1, mLoader.getStats().getLoadedObjectCount());
+    }
+
+    private void loadVisible(int monthIndex) {
+        mLoader.loadVisible(monthIndex);
+        mExecutor.runAll();
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    private static CalendarObject create(String id, int monthIndex) {
+        Calendar datetime = Calendar.getInstance();
+        datetime.clear();
+        datetime.set(EpochDay.yearOfMonthIndex(monthIndex), EpochDay.monthOfMonthIndex(monthIndex), 10, 9, 0);
+        return new CalendarObject(id, datetime, 0, 0);
+    }
+
+    private static String getID(String prefix, int monthIndex) {
+        return prefix + " " + monthIndex;
+    }
+
+    /**
+     * One object per month, on its 10th day
+     */
+    private static class DataSource implements CalendarView.MonthDataSource {
+
+        private final String mPrefix;
+
+        DataSource(String prefix) {
+            mPrefix = prefix;
+        }
+
+        @Override
+        public List<CalendarObject> loadMonth(int year, int month) {
+            int monthIndex = EpochDay.monthIndex(year, month);
+            return Collections.singletonList(create(getID(mPrefix, monthIndex), monthIndex));
+        }
+    }
+
+    /**
+     * Runs the loads on the test thread, when told to
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> mRunnables = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            mRunnables.add(runnable);
+        }
+
+        int size() {
+            return mRunnables.size();
+        }
+
+        void runAll() {
+            while (!mRunnables.isEmpty())
+                mRunnables.remove(0).run();
+        }
+    }
+}
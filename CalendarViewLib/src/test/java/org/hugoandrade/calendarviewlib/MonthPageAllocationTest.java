@@ -0,0 +1,126 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binding a recycled page to a month that was already shown (cells, notes, recurring
+ * objects and multi-day bars) allocates nothing, nor does reading its header texts
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MonthPageAllocationTest {
+
+    /**
+     * Few enough months that their recurring objects stay expanded
+     */
+    private static final int SWIPES = 4;
+
+    @Test
+    public void bindingAPageDoesNotAllocate() {
+        CalendarViewHarness harness = new CalendarViewHarness(Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.render_mode, "canvas")
+                .build());
+        CalendarView calendarView = harness.calendarView;
+        calendarView.setCalendarObjectList(createCalendarObjects());
+        Calendar start = Calendar.getInstance();
+        start.set(Calendar.HOUR_OF_DAY, 9);
+        calendarView.addRecurringCalendarObject("weekly",
+                new RecurrenceRule.Builder(start, RecurrenceRule.WEEKLY).create(), 1, 2);
+        harness.idle();
+
+        // Grows the buffers reused by the binds and links the calls they make
+        RenderStats stats = calendarView.getRenderStats();
+        stats.setAllocationCounter(new ThreadAllocationCounter());
+        stats.setEnabled(true);
+        for (int i = 0 ; i < 3 ; i++) {
+            harness.swipe(SWIPES);
+            harness.swipe(-SWIPES);
+        }
+
+        stats.reset();
+        harness.swipe(SWIPES);
+        harness.swipe(-SWIPES);
+        stats.setEnabled(false);
+
+        assertTrue(stats.toString(), stats.pagesBound > 0);
+        assertEquals(stats.toString(), 0, stats.bindAllocatedBytes);
+    }
+
+    @Test
+    public void headerTextsAreFormattedOnce() {
+        CalendarView calendarView = new CalendarViewHarness().calendarView;
+        Calendar today = Calendar.getInstance();
+        int monthIndex = EpochDay.monthIndex(today.get(Calendar.YEAR), today.get(Calendar.MONTH));
+        String monthHeaderText = calendarView.getMonthHeaderText(monthIndex);
+        String[] weekHeaderTexts = calendarView.getWeekHeaderTexts();
+
+        assertSame(monthHeaderText, calendarView.getMonthHeaderText(monthIndex));
+        assertSame(weekHeaderTexts, calendarView.getWeekHeaderTexts());
+
+        // Once the calls are linked
+        ThreadAllocationCounter counter = new ThreadAllocationCounter();
+        readHeaderTexts(calendarView, monthIndex);
+        long allocatedBytes = counter.getAllocatedBytes();
+        readHeaderTexts(calendarView, monthIndex);
+        assertEquals(0, counter.getAllocatedBytes() - allocatedBytes);
+    }
+
+    private static void readHeaderTexts(CalendarView calendarView, int monthIndex) {
+        for (int i = 0 ; i < 100 ; i++) {
+            calendarView.getMonthHeaderText(monthIndex);
+            calendarView.getWeekHeaderTexts();
+        }
+    }
+
+    @Test
+    public void headerTextsFollowTheLocale() {
+        CalendarView calendarView = new CalendarViewHarness().calendarView;
+        Calendar today = Calendar.getInstance();
+        int monthIndex = EpochDay.monthIndex(today.get(Calendar.YEAR), today.get(Calendar.MONTH));
+        String monthHeaderText = calendarView.getMonthHeaderText(monthIndex);
+        String weekHeaderText = calendarView.getWeekHeaderTexts()[0];
+
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.US.equals(locale) ? Locale.FRANCE : Locale.US);
+        try {
+            assertNotEquals(monthHeaderText, calendarView.getMonthHeaderText(monthIndex));
+            assertNotEquals(weekHeaderText, calendarView.getWeekHeaderTexts()[0]);
+        }
+        finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Objects on every few hours of the months swiped through, and one spanning them all
+     */
+    private static List<CalendarView.CalendarObject> createCalendarObjects() {
+        List<CalendarView.CalendarObject> calendarObjectList = new ArrayList<>();
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.MONTH, -2);
+        for (int i = 0 ; i < 2000 ; i++) {
+            Calendar datetime = (Calendar) calendar.clone();
+            datetime.add(Calendar.HOUR_OF_DAY, i * 5);
+            calendarObjectList.add(new CalendarView.CalendarObject("id" + i, datetime, i % 5, i % 3));
+        }
+        Calendar end = (Calendar) calendar.clone();
+        end.add(Calendar.MONTH, SWIPES + 4);
+        calendarObjectList.add(new CalendarView.CalendarObject("span", calendar, end, 3, 4));
+        return calendarObjectList;
+    }
+}
@@ -0,0 +1,72 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.View;
+import android.widget.TextView;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Pages bound through the preallocated grid model show the days of their month,
+ * and the shared click handler resolves the cell that was clicked
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MonthPageBindingTest {
+
+    @Test
+    public void livePagesShowTheDaysOfTheirMonths() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        Calendar today = Calendar.getInstance();
+
+        for (int m = -1 ; m <= 1 ; m++) {
+            Calendar month = (Calendar) today.clone();
+            month.set(Calendar.DAY_OF_MONTH, 1);
+            month.add(Calendar.MONTH, m);
+            assertNotNull("month " + m, harness.findPage(month.get(Calendar.YEAR), month.get(Calendar.MONTH)));
+        }
+    }
+
+    @Test
+    public void clickingACellSelectsItsDay() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        final List<Calendar> selectedDates = new ArrayList<>();
+        harness.calendarView.setOnItemClickedListener(new CalendarView.OnItemClickListener() {
+            @Override
+            public void onItemClicked(List<CalendarView.CalendarObject> calendarObjects,
+                                      Calendar previousDate,
+                                      Calendar selectedDate) {
+                selectedDates.add(selectedDate);
+            }
+        });
+
+        Calendar today = Calendar.getInstance();
+        int year = today.get(Calendar.YEAR);
+        int month = today.get(Calendar.MONTH);
+        int firstDay = EpochDay.firstDayOfGrid(year, month, Calendar.MONDAY);
+        List<TextView> dayTextViews = CalendarViewHarness.getDayTextViews(harness.findPage(year, month));
+
+        // Every day of the month shown by the page
+        for (int day = 1 ; day <= EpochDay.lengthOfMonth(year, month) ; day++) {
+            int position = EpochDay.of(year, month, day) - firstDay;
+            ((View) dayTextViews.get(position).getParent()).performClick();
+            harness.idle();
+
+            Calendar selectedDate = selectedDates.get(selectedDates.size() - 1);
+            assertEquals(year, selectedDate.get(Calendar.YEAR));
+            assertEquals(month, selectedDate.get(Calendar.MONTH));
+            assertEquals(day, selectedDate.get(Calendar.DAY_OF_MONTH));
+        }
+        assertEquals(EpochDay.lengthOfMonth(year, month), selectedDates.size());
+    }
+}
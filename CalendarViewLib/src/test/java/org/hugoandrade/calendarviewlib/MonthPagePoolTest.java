@@ -0,0 +1,143 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Destroyed month pages are re-bound instead of inflated, and show their new month.
+ * The inflate counts and times over the swipes, with and without the pool, are
+ * written to build/reports/month-page-pool.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MonthPagePoolTest {
+
+    private static final int SWIPES = 100;
+
+    @Test
+    public void recycledPagesShowTheirNewMonth() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+
+        for (int i = 1 ; i <= 12 ; i++) {
+            harness.swipe(1);
+            assertLivePagesShowMonthsAround(harness, i);
+        }
+        for (int i = 11 ; i >= -12 ; i--) {
+            harness.swipe(-1);
+            assertLivePagesShowMonthsAround(harness, i);
+        }
+    }
+
+    @Test
+    public void swipingInflatesOnlyTheLivePagesAndThePool() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setEnabled(true);
+
+        harness.swipe(SWIPES);
+
+        int maxLivePages = 2 * harness.viewPager.getOffscreenPageLimit() + 1;
+        assertTrue(stats.toString(), stats.pagesInflated <= CalendarView.DEFAULT_MAX_RECYCLED_MONTH_VIEWS);
+        assertTrue(stats.toString(), stats.pagesRecycled >= SWIPES - maxLivePages);
+        assertEquals(stats.toString(), stats.pagesInflated + stats.pagesRecycled, stats.pagesBound);
+    }
+
+    @Test
+    public void swipingWithoutPoolInflatesEveryPage() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        harness.calendarView.setMonthViewPoolSize(0);
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setEnabled(true);
+
+        harness.swipe(SWIPES);
+
+        assertEquals(stats.toString(), 0, stats.pagesRecycled);
+        assertEquals(stats.toString(), SWIPES, stats.pagesInflated);
+        assertLivePagesShowMonthsAround(harness, SWIPES);
+    }
+
+    @Test
+    public void poolBenchmark() throws IOException {
+        RenderStats pooled = swipeThroughMonths(CalendarView.DEFAULT_MAX_RECYCLED_MONTH_VIEWS);
+        RenderStats unpooled = swipeThroughMonths(0);
+
+        writeReport(pooled, unpooled);
+
+        assertEquals(pooled.toString(), SWIPES, pooled.pagesBound);
+        assertEquals(unpooled.toString(), SWIPES, unpooled.pagesBound);
+        assertTrue(pooled + " vs " + unpooled, pooled.pagesInflated < unpooled.pagesInflated);
+    }
+
+    /**
+     * @return the render counters of swiping through the months with a pool of the given size
+     */
+    private static RenderStats swipeThroughMonths(int poolSize) {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        harness.calendarView.setMonthViewPoolSize(poolSize);
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setEnabled(true);
+
+        harness.swipe(SWIPES);
+
+        stats.setEnabled(false);
+        return stats;
+    }
+
+    private static void writeReport(RenderStats pooled, RenderStats unpooled) throws IOException {
+        File file = new File("build/reports/month-page-pool.json");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(String.format(Locale.US,
+                    "{\n" +
+                    "  \"swipes\": %d,\n" +
+                    "  \"pooled\": %s,\n" +
+                    "  \"unpooled\": %s\n" +
+                    "}\n",
+                    SWIPES,
+                    toJson(pooled),
+                    toJson(unpooled)));
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static String toJson(RenderStats stats) {
+        return String.format(Locale.US,
+                "{ \"pagesInflated\": %d, \"pagesRecycled\": %d, \"pagesBound\": %d, " +
+                "\"inflateTimeNanos\": %d, \"bindTimeNanos\": %d }",
+                stats.pagesInflated,
+                stats.pagesRecycled,
+                stats.pagesBound,
+                stats.inflateTimeNanos,
+                stats.bindTimeNanos);
+    }
+
+    /**
+     * Check the live pages show the month at 'months' from the current one, and the months next to it
+     */
+    private static void assertLivePagesShowMonthsAround(CalendarViewHarness harness, int months) {
+        for (int m = months - 1 ; m <= months + 1 ; m++) {
+            Calendar month = Calendar.getInstance();
+            month.set(Calendar.DAY_OF_MONTH, 1);
+            month.add(Calendar.MONTH, m);
+            assertNotNull("month " + m, harness.findPage(month.get(Calendar.YEAR), month.get(Calendar.MONTH)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class PageLeakTest {
+
+    private static final int SWIPES = 40;
+
+    @Test
+    public void retainedPagesAreBoundedBySwiping() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        int maxLivePages = getMaxLivePages(harness);
+
+        for (int i = 0 ; i < SWIPES ; i++) {
+            harness.swipe(1);
+            assertTrue(getMessage(harness), harness.calendarView.getRetainedMonthViewCount() <= maxLivePages);
+        }
+        harness.swipe(-2 * SWIPES);
+
+        assertEquals(getMessage(harness), harness.viewPager.getChildCount(), harness.calendarView.getRetainedMonthViewCount());
+    }
+
+    @Test
+    public void retainedPagesAreBoundedWhenAllPagesAreInstantiatedAgain() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        int maxLivePages = getMaxLivePages(harness);
+
+        for (int i = 0 ; i < SWIPES ; i++) {
+            // Instantiates every live page again (notifyDataSetChanged)
+            harness.calendarView.invalidate();
+            harness.swipe(i % 2 == 0 ? 1 : -2);
+            harness.calendarView.invalidate();
+            harness.idle();
+
+            assertTrue(getMessage(harness), harness.calendarView.getRetainedMonthViewCount() <= maxLivePages);
+        }
+        assertEquals(getMessage(harness), harness.viewPager.getChildCount(), harness.calendarView.getRetainedMonthViewCount());
+    }
+
+    @Test
+    public void destroyedPagesAreNotReachable() {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        // Without a pool, every destroyed page must be collectable
+        harness.calendarView.setMonthViewPoolSize(0);
+
+        List<WeakReference<View>> pages = new ArrayList<>();
+        for (int i = 0 ; i < harness.viewPager.getChildCount() ; i++)
+            pages.add(new WeakReference<>(harness.viewPager.getChildAt(i)));
+
+        harness.swipe(SWIPES);
+        collectGarbage();
+
+        for (WeakReference<View> page : pages)
+            assertNull(page.get());
+    }
+
+    private static int getMaxLivePages(CalendarViewHarness harness) {
+        return 2 * harness.viewPager.getOffscreenPageLimit() + 1;
+    }
+
+    private static String getMessage(CalendarViewHarness harness) {
+        return "retained " + harness.calendarView.getRetainedMonthViewCount()
+                + " pages, shown " + harness.viewPager.getChildCount();
+    }
+
+    private static void collectGarbage() {
+        for (int i = 0 ; i < 5 ; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RangeIndexTest {
+
+    @Test
+    public void queryFindsTheObjectsThatIntersectTheDays() {
+        Random random = new Random(3);
+        for (int round = 0 ; round < 50 ; round++) {
+            int size = random.nextInt(200);
+            List<CalendarObject> calendarObjectList = new ArrayList<>();
+            for (int i = 0 ; i < size ; i++)
+                calendarObjectList.add(create("id" + i, random.nextInt(365), random.nextInt(40)));
+
+            RangeIndex rangeIndex = new RangeIndex();
+            rangeIndex.setAll(calendarObjectList);
+
+            for (int q = 0 ; q < 20 ; q++) {
+                int fromDay = random.nextInt(400) - 20;
+                int toDay = fromDay + random.nextInt(42);
+
+                Set<String> expected = new HashSet<>();
+                for (CalendarObject calendarObject : calendarObjectList)
+                    if (calendarObject.getEpochDay() <= toDay && calendarObject.getEndEpochDay() >= fromDay)
+                        expected.add(calendarObject.getID());
+
+                assertEquals(expected, query(rangeIndex, fromDay, toDay));
+            }
+        }
+    }
+
+    @Test
+    public void queryResultsAreSortedByStartDay() {
+        RangeIndex rangeIndex = new RangeIndex();
+        rangeIndex.add(create("c", 20, 5));
+        rangeIndex.add(create("a", 0, 30));
+        rangeIndex.add(create("b", 10, 3));
+
+        int count = rangeIndex.query(0, 40);
+        assertEquals(3, count);
+        for (int r = 1 ; r < count ; r++)
+            assertTrue(rangeIndex.getStartDay(rangeIndex.getResult(r - 1))
+                    <= rangeIndex.getStartDay(rangeIndex.getResult(r)));
+    }
+
+    @Test
+    public void addReplacesTheObjectWithTheSameID() {
+        RangeIndex rangeIndex = new RangeIndex();
+        rangeIndex.add(create("a", 0, 5));
+        rangeIndex.add(create("b", 2, 5));
+        CalendarObject moved = create("a", 100, 5);
+        rangeIndex.add(moved);
+
+        assertEquals(setOf("b"), query(rangeIndex, 0, 10));
+        assertEquals(setOf("a"), query(rangeIndex, 100, 110));
+        assertEquals(100, rangeIndex.get("a").getEpochDay());
+    }
+
+    @Test
+    public void removeKeepsTheOtherObjectsFindable() {
+        RangeIndex rangeIndex = new RangeIndex();
+        for (int i = 0 ; i < 10 ; i++)
+            rangeIndex.add(create("id" + i, i * 10, 5));
+        rangeIndex.query(0, 100);
+
+        assertEquals("id3", rangeIndex.remove("id3").getID());
+        assertNull(rangeIndex.remove("id3"));
+        assertNull(rangeIndex.get("id3"));
+
+        Set<String> expected = new HashSet<>();
+        for (int i = 0 ; i < 10 ; i++)
+            if (i != 3)
+                expected.add("id" + i);
+        assertEquals(expected, query(rangeIndex, 0, 100));
+        for (String id : expected)
+            assertEquals(id, rangeIndex.get(id).getID());
+    }
+
+    @Test
+    public void keptObjectsAreReturnedAsTheyWereAdded() {
+        RangeIndex rangeIndex = new RangeIndex();
+        rangeIndex.setKeepObjects(true);
+        CalendarObject calendarObject = create("a", 10, 5);
+        rangeIndex.add(create("b", 0, 5));
+        rangeIndex.add(calendarObject);
+        rangeIndex.query(0, 20);
+
+        assertSame(calendarObject, rangeIndex.get("a"));
+        assertSame(calendarObject, rangeIndex.remove("a"));
+    }
+
+    @Test
+    public void clearEmptiesTheIndex() {
+        RangeIndex rangeIndex = new RangeIndex();
+        rangeIndex.add(create("a", 0, 5));
+        rangeIndex.clear();
+
+        assertTrue(rangeIndex.isEmpty());
+        assertNull(rangeIndex.get("a"));
+        assertEquals(0, rangeIndex.query(0, 10));
+    }
+
+    private static Set<String> query(RangeIndex rangeIndex, int fromDay, int toDay) {
+        Set<String> ids = new HashSet<>();
+        int count = rangeIndex.query(fromDay, toDay);
+        for (int r = 0 ; r < count ; r++)
+            ids.add(rangeIndex.get(rangeIndex.getResult(r)).getID());
+        assertEquals(count, ids.size());
+        return ids;
+    }
+
+    private static Set<String> setOf(String... ids) {
+        Set<String> set = new HashSet<>();
+        for (String id : ids)
+            set.add(id);
+        return set;
+    }
+
+    private static CalendarObject create(String id, int epochDay, int days) {
+        return new StoredCalendarObject(id, epochDay, 9 * 60, epochDay + days, 18 * 60, 0, 0);
+    }
+}
@@ -0,0 +1,44 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RecurrenceExpanderTest {
+
+    @Test
+    public void leastRecentlyUsedMonthIsExpandedAgain() {
+        Calendar start = Calendar.getInstance();
+        start.clear();
+        start.set(2019, Calendar.JANUARY, 1, 9, 30);
+        RecurrenceExpander expander = new RecurrenceExpander();
+        expander.put("daily", new RecurrenceRule.Builder(start, RecurrenceRule.DAILY).create(), 0, 0);
+
+        CalendarObjectStore.Month january = expander.getMonth(201900);
+        assertEquals(31, january.size);
+        assertEquals("daily", january.get(0).getID());
+
+        // January is used again, so February is dropped to make room for another month
+        for (int m = 1 ; m < RecurrenceExpander.MAX_EXPANDED_MONTHS ; m++)
+            expander.getMonth(201900 + m);
+        CalendarObjectStore.Month february = expander.getMonth(201901);
+        for (int m = 2 ; m < RecurrenceExpander.MAX_EXPANDED_MONTHS ; m++)
+            expander.getMonth(201900 + m);
+        assertSame(january, expander.getMonth(201900));
+        expander.getMonth(202000);
+        assertSame(january, expander.getMonth(201900));
+        assertNotSame(february, expander.getMonth(201901));
+        assertEquals(28, expander.getMonth(201901).size);
+
+        // Then dropped, once the other months were all used after it
+        for (int m = 0 ; m < RecurrenceExpander.MAX_EXPANDED_MONTHS ; m++)
+            expander.getMonth(202000 + m);
+        CalendarObjectStore.Month expandedAgain = expander.getMonth(201900);
+        assertNotSame(january, expandedAgain);
+        assertEquals(31, expandedAgain.size);
+    }
+}
@@ -0,0 +1,232 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RecurrenceRuleTest {
+
+    @Test
+    public void dailyEveryThreeDays() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.DAILY)
+                .setInterval(3)
+                .create();
+
+        assertArrayEquals(days(april(1), april(4), april(7), april(10)),
+                getOccurrences(rule, april(1) - 10, april(10)));
+        assertArrayEquals(days(april(7)), getOccurrences(rule, april(5), april(9)));
+    }
+
+    @Test
+    public void weeklyOnSeveralWeekDaysEveryOtherWeek() {
+        // Wednesday
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 3), RecurrenceRule.WEEKLY)
+                .setInterval(2)
+                .setWeekDays(Calendar.MONDAY, Calendar.WEDNESDAY, Calendar.FRIDAY)
+                .create();
+
+        assertArrayEquals(days(april(3), april(5), april(15), april(17), april(19), april(29), april(31), april(33)),
+                getOccurrences(rule, april(1), april(33)));
+    }
+
+    @Test
+    public void weeklyDefaultsToTheWeekDayOfTheStart() {
+        // Thursday
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 4), RecurrenceRule.WEEKLY)
+                .create();
+
+        assertArrayEquals(days(april(4), april(11), april(18), april(25)),
+                getOccurrences(rule, april(1), april(30)));
+    }
+
+    @Test
+    public void weeklyOnSaturdayAndSundayWrapsToTheNextWeek() {
+        // Saturday
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 6), RecurrenceRule.WEEKLY)
+                .setWeekDays(Calendar.SATURDAY, Calendar.SUNDAY)
+                .create();
+
+        assertArrayEquals(days(april(6), april(7), april(13), april(14)),
+                getOccurrences(rule, april(1), april(14)));
+    }
+
+    @Test
+    public void monthlySkipsMonthsWithoutTheDay() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.JANUARY, 31), RecurrenceRule.MONTHLY)
+                .create();
+
+        assertArrayEquals(days(
+                EpochDay.of(2019, Calendar.JANUARY, 31),
+                EpochDay.of(2019, Calendar.MARCH, 31),
+                EpochDay.of(2019, Calendar.MAY, 31),
+                EpochDay.of(2019, Calendar.JULY, 31),
+                EpochDay.of(2019, Calendar.AUGUST, 31)),
+                getOccurrences(rule, EpochDay.of(2019, Calendar.JANUARY, 1), EpochDay.of(2019, Calendar.SEPTEMBER, 30)));
+    }
+
+    @Test
+    public void monthlyOnTheNthWeekDay() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.JANUARY, 1), RecurrenceRule.MONTHLY)
+                .setNthWeekDay(2, Calendar.TUESDAY)
+                .create();
+
+        assertArrayEquals(days(
+                EpochDay.of(2019, Calendar.JANUARY, 8),
+                EpochDay.of(2019, Calendar.FEBRUARY, 12),
+                EpochDay.of(2019, Calendar.MARCH, 12)),
+                getOccurrences(rule, EpochDay.of(2019, Calendar.JANUARY, 1), EpochDay.of(2019, Calendar.MARCH, 31)));
+    }
+
+    @Test
+    public void monthlyOnTheFifthWeekDaySkipsMonthsWithoutIt() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.JANUARY, 1), RecurrenceRule.MONTHLY)
+                .setNthWeekDay(5, Calendar.FRIDAY)
+                .create();
+
+        assertArrayEquals(days(
+                EpochDay.of(2019, Calendar.MARCH, 29),
+                EpochDay.of(2019, Calendar.MAY, 31)),
+                getOccurrences(rule, EpochDay.of(2019, Calendar.JANUARY, 1), EpochDay.of(2019, Calendar.JUNE, 30)));
+    }
+
+    @Test
+    public void monthlyOnTheLastWeekDayEveryOtherMonth() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.JANUARY, 1), RecurrenceRule.MONTHLY)
+                .setNthWeekDay(RecurrenceRule.LAST, Calendar.FRIDAY)
+                .setInterval(2)
+                .create();
+
+        assertArrayEquals(days(
+                EpochDay.of(2019, Calendar.JANUARY, 25),
+                EpochDay.of(2019, Calendar.MARCH, 29),
+                EpochDay.of(2019, Calendar.MAY, 31)),
+                getOccurrences(rule, EpochDay.of(2019, Calendar.JANUARY, 1), EpochDay.of(2019, Calendar.JUNE, 30)));
+    }
+
+    @Test
+    public void untilIsInclusive() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.DAILY)
+                .setUntil(date(2019, Calendar.APRIL, 3))
+                .create();
+
+        assertArrayEquals(days(april(1), april(2), april(3)), getOccurrences(rule, april(1), april(30)));
+    }
+
+    @Test
+    public void countIncludesTheExcludedDates() {
+        RecurrenceRule rule = new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.DAILY)
+                .setCount(5)
+                .addException(date(2019, Calendar.APRIL, 3))
+                .addException(date(2019, Calendar.MARCH, 1))
+                .create();
+
+        assertArrayEquals(days(april(1), april(2), april(4), april(5)), getOccurrences(rule, april(1), april(30)));
+    }
+
+    @Test
+    public void keepsTheTimeOfTheStart() {
+        Calendar start = date(2019, Calendar.APRIL, 1);
+        start.set(Calendar.HOUR_OF_DAY, 9);
+        start.set(Calendar.MINUTE, 45);
+
+        assertEquals(9 * 60 + 45, new RecurrenceRule.Builder(start, RecurrenceRule.DAILY).create().getMinuteOfDay());
+    }
+
+    @Test
+    public void splittingTheRangeDoesNotChangeTheOccurrences() {
+        Random random = new Random(7);
+        for (int i = 0 ; i < 500 ; i++) {
+            RecurrenceRule rule = createRandom(random);
+            int fromDay = EpochDay.of(2019, 0, 1) + random.nextInt(400);
+            int toDay = fromDay + random.nextInt(120);
+            int splitDay = fromDay + random.nextInt(toDay - fromDay + 1);
+
+            int[] first = getOccurrences(rule, fromDay, splitDay);
+            int[] second = getOccurrences(rule, splitDay + 1, toDay);
+            int[] joined = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, joined, first.length, second.length);
+
+            assertArrayEquals("rule " + i, getOccurrences(rule, fromDay, toDay), joined);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownFrequency() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANullStart() {
+        new RecurrenceRule.Builder(null, RecurrenceRule.DAILY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANonPositiveInterval() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.DAILY).setInterval(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANegativeCount() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.DAILY).setCount(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnInvalidWeekDay() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.WEEKLY).setWeekDays(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoWeekDays() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.WEEKLY).setWeekDays();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnInvalidNth() {
+        new RecurrenceRule.Builder(date(2019, Calendar.APRIL, 1), RecurrenceRule.MONTHLY)
+                .setNthWeekDay(6, Calendar.MONDAY);
+    }
+
+    private static RecurrenceRule createRandom(Random random) {
+        int frequency = random.nextInt(3);
+        RecurrenceRule.Builder builder = new RecurrenceRule.Builder(
+                date(2019, random.nextInt(12), 1 + random.nextInt(28)), frequency)
+                .setInterval(1 + random.nextInt(3));
+        if (frequency == RecurrenceRule.WEEKLY)
+            builder.setWeekDays(Calendar.SUNDAY + random.nextInt(7), Calendar.SUNDAY + random.nextInt(7));
+        if (frequency == RecurrenceRule.MONTHLY && random.nextBoolean())
+            builder.setNthWeekDay(random.nextBoolean() ? RecurrenceRule.LAST : 1 + random.nextInt(5),
+                    Calendar.SUNDAY + random.nextInt(7));
+        if (random.nextBoolean())
+            builder.setCount(random.nextInt(20));
+        return builder.create();
+    }
+
+    private static int[] getOccurrences(RecurrenceRule rule, int fromDay, int toDay) {
+        int[] occurrences = new int[toDay - fromDay + 1];
+        return Arrays.copyOf(occurrences, rule.getOccurrences(fromDay, toDay, occurrences));
+    }
+
+    /**
+     * @return the epoch day of the given day of April 2019 (past the 30th into May)
+     */
+    private static int april(int day) {
+        return EpochDay.of(2019, Calendar.APRIL, 1) + day - 1;
+    }
+
+    private static int[] days(int... days) {
+        return days;
+    }
+
+    private static Calendar date(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar;
+    }
+}
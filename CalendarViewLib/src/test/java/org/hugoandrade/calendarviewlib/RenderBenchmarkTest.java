@@ -0,0 +1,120 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.helpers.MonthGridView;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Swipes through the months of a calendar with objects, writes the render counters
+ * (with the time spent measuring and laying it out, and the bytes allocated binding
+ * pages) to build/reports/render-stats.json and fails if they regress. The
+ * thresholds can be set with Gradle properties, eg. -PrenderStats.maxBindMillisPerPage=5
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RenderBenchmarkTest {
+
+    private static final int SWIPES = 60;
+    private static final int OBJECTS = 5000;
+
+    @Test
+    public void swipeThroughMonths() throws IOException {
+        CalendarViewHarness harness = new CalendarViewHarness();
+        harness.calendarView.setCalendarObjectList(createCalendarObjects());
+        harness.idle();
+
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setAllocationCounter(new ThreadAllocationCounter());
+        stats.setEnabled(true);
+        harness.swipe(SWIPES);
+        harness.swipe(-SWIPES);
+        stats.setEnabled(false);
+
+        writeReport(stats);
+
+        // Pages are recycled: only the live pages and the pool are ever inflated
+        int maxLivePages = 2 * harness.viewPager.getOffscreenPageLimit() + 1;
+        assertTrue(stats.toString(),
+                stats.pagesInflated <= maxLivePages + CalendarView.DEFAULT_MAX_RECYCLED_MONTH_VIEWS);
+
+        // Every page bind binds each cell once, and nothing else is rebound
+        assertEquals(stats.toString(),
+                stats.pagesBound * MonthGridView.NUMBER_OF_COLUMNS * MonthGridView.NUMBER_OF_ROWS, stats.cellsBound);
+
+        assertTrue(stats.toString(),
+                stats.layoutPasses <= 2 * SWIPES * getThreshold("maxLayoutPassesPerSwipe", 4));
+        assertTrue(stats.toString(),
+                stats.bindTimeNanos / 1000000 <= stats.pagesBound * getThreshold("maxBindMillisPerPage", 50));
+    }
+
+    private static List<CalendarView.CalendarObject> createCalendarObjects() {
+        List<CalendarView.CalendarObject> calendarObjectList = new ArrayList<>(OBJECTS);
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.MONTH, -SWIPES);
+        for (int i = 0 ; i < OBJECTS ; i++) {
+            Calendar datetime = (Calendar) calendar.clone();
+            datetime.add(Calendar.HOUR_OF_DAY, i * 7);
+            calendarObjectList.add(new CalendarView.CalendarObject("id" + i, datetime, i % 5, i % 3));
+        }
+        return calendarObjectList;
+    }
+
+    private static long getThreshold(String name, long defaultValue) {
+        String value = System.getProperty("renderStats." + name);
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+
+    private static void writeReport(RenderStats stats) throws IOException {
+        File file = new File("build/reports/render-stats.json");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(String.format(Locale.US,
+                    "{\n" +
+                    "  \"swipes\": %d,\n" +
+                    "  \"pagesInflated\": %d,\n" +
+                    "  \"pagesRecycled\": %d,\n" +
+                    "  \"pagesBound\": %d,\n" +
+                    "  \"cellsBound\": %d,\n" +
+                    "  \"viewsPerPage\": %d,\n" +
+                    "  \"layoutPasses\": %d,\n" +
+                    "  \"inflateTimeNanos\": %d,\n" +
+                    "  \"bindTimeNanos\": %d,\n" +
+                    "  \"bindAllocatedBytes\": %d,\n" +
+                    "  \"measureTimeNanos\": %d,\n" +
+                    "  \"layoutTimeNanos\": %d\n" +
+                    "}\n",
+                    2 * SWIPES,
+                    stats.pagesInflated,
+                    stats.pagesRecycled,
+                    stats.pagesBound,
+                    stats.cellsBound,
+                    stats.viewsPerPage,
+                    stats.layoutPasses,
+                    stats.inflateTimeNanos,
+                    stats.bindTimeNanos,
+                    stats.bindAllocatedBytes,
+                    stats.measureTimeNanos,
+                    stats.layoutTimeNanos));
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.hugoandrade.calendarviewlib;
+
+import android.graphics.Color;
+import android.widget.TextView;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A selection change rebinds only the cells of the two days, found arithmetically.
+ * The latency threshold can be set with a Gradle property, eg.
+ * -PrenderStats.maxSelectionChangeMicros=200
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class SelectionChangeTest {
+
+    private static final int DAY_TEXT_COLOR = Color.BLACK;
+    private static final int SELECTED_DAY_TEXT_COLOR = Color.RED;
+    private static final int SELECTION_CHANGES = 1000;
+
+    @Test
+    public void selectionChangeRebindsTheCellsOfBothDays() {
+        CalendarViewHarness harness = createHarness();
+        Calendar today = Calendar.getInstance();
+        int year = today.get(Calendar.YEAR);
+        int month = today.get(Calendar.MONTH);
+        int day = getWeekDay(today, 8);
+        int otherDay = getWeekDay(today, day + 1);
+
+        harness.calendarView.setSelectedDate(getDate(year, month, day));
+        assertEquals(SELECTED_DAY_TEXT_COLOR, getDayTextView(harness, year, month, day).getCurrentTextColor());
+
+        harness.calendarView.setSelectedDate(getDate(year, month, otherDay));
+        assertEquals(DAY_TEXT_COLOR, getDayTextView(harness, year, month, day).getCurrentTextColor());
+        assertEquals(SELECTED_DAY_TEXT_COLOR, getDayTextView(harness, year, month, otherDay).getCurrentTextColor());
+    }
+
+    @Test
+    public void selectionChangeCostIsConstant() {
+        CalendarViewHarness harness = createHarness();
+        Calendar today = Calendar.getInstance();
+        Calendar[] dates = {
+                getDate(today.get(Calendar.YEAR), today.get(Calendar.MONTH), 1),
+                getDate(today.get(Calendar.YEAR), today.get(Calendar.MONTH), 28)
+        };
+
+        RenderStats stats = harness.calendarView.getRenderStats();
+        stats.setEnabled(true);
+        long start = System.nanoTime();
+        for (int i = 0 ; i < SELECTION_CHANGES ; i++)
+            harness.calendarView.setSelectedDate(dates[i % 2]);
+        long micros = (System.nanoTime() - start) / 1000 / SELECTION_CHANGES;
+        stats.setEnabled(false);
+
+        // The previous and the new day, each shown by at most two live pages
+        assertTrue(stats.toString(), stats.cellsBound <= 4 * SELECTION_CHANGES);
+        assertEquals(stats.toString(), 0, stats.pagesBound);
+        assertTrue(micros + " us per selection change", micros <= getThreshold("maxSelectionChangeMicros", 1000));
+    }
+
+    private static CalendarViewHarness createHarness() {
+        return new CalendarViewHarness(Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.day_text_color, "#ff000000")
+                .addAttribute(R.attr.selected_day_text_color, "#ffff0000")
+                .build());
+    }
+
+    /**
+     * @return the first day of the month of 'today', from the given day, that is
+     * neither today nor on a weekend (shown with the offset day colors). Days in the
+     * middle of the month, so only shown by the page of the month.
+     */
+    private static int getWeekDay(Calendar today, int fromDay) {
+        int year = today.get(Calendar.YEAR);
+        int month = today.get(Calendar.MONTH);
+        int day = fromDay;
+        while (day == today.get(Calendar.DAY_OF_MONTH)
+                || EpochDay.dayOfWeek(EpochDay.of(year, month, day)) == Calendar.SATURDAY
+                || EpochDay.dayOfWeek(EpochDay.of(year, month, day)) == Calendar.SUNDAY)
+            day++;
+        return day;
+    }
+
+    private static TextView getDayTextView(CalendarViewHarness harness, int year, int month, int day) {
+        List<TextView> dayTextViews = CalendarViewHarness.getDayTextViews(harness.findPage(year, month));
+        return dayTextViews.get(EpochDay.of(year, month, day) - EpochDay.firstDayOfGrid(year, month, Calendar.MONDAY));
+    }
+
+    private static Calendar getDate(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(year, month, day);
+        return calendar;
+    }
+
+    private static long getThreshold(String name, long defaultValue) {
+        String value = System.getProperty("renderStats." + name);
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,33 @@
+package org.hugoandrade.calendarviewlib;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the thread that created it, read from the JVM running the
+ * tests. What reading the JVM counter allocates itself is measured once and left out.
+ */
+class ThreadAllocationCounter implements RenderStats.AllocationCounter {
+
+    private final com.sun.management.ThreadMXBean mThreadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long mThreadID = Thread.currentThread().getId();
+    private final long mBytesPerRead;
+    private long mReads;
+
+    ThreadAllocationCounter() {
+        // Read it until it is compiled, then once more to measure a read
+        for (int i = 0 ; i < 10000 ; i++)
+            read();
+        long allocatedBytes = read();
+        mBytesPerRead = read() - allocatedBytes;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return read() - mBytesPerRead * ++mReads;
+    }
+
+    private long read() {
+        return mThreadMXBean.getThreadAllocatedBytes(mThreadID);
+    }
+}
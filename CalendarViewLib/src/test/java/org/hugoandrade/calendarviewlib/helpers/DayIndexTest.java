@@ -0,0 +1,70 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DayIndexTest {
+
+    @Test
+    public void sortedKeysKeepTheOrderOfEqualDatetimes() {
+        int day = EpochDay.of(2019, Calendar.APRIL, 5);
+        long[] keys = {
+                DayIndex.key(day, 600, 0),
+                DayIndex.key(day, 540, 1),
+                DayIndex.key(day, 600, 2),
+                DayIndex.key(day - 1, 1439, 3)
+        };
+        Arrays.sort(keys);
+
+        int[] indexes = new int[keys.length];
+        for (int i = 0 ; i < keys.length ; i++)
+            indexes[i] = DayIndex.indexOfKey(keys[i]);
+        assertEquals("[3, 1, 0, 2]", Arrays.toString(indexes));
+        assertEquals(DayIndex.datetime(day, 600), DayIndex.datetimeOfKey(keys[3]));
+    }
+
+    @Test
+    public void upperBoundIsAfterEqualDatetimes() {
+        int day = EpochDay.of(2019, Calendar.APRIL, 5);
+        int[] epochDays = {day, day, day, day + 1};
+        int[] minutesOfDay = {60, 120, 120, 0};
+
+        assertEquals(0, DayIndex.upperBound(epochDays, minutesOfDay, 4, day, 0));
+        assertEquals(1, DayIndex.upperBound(epochDays, minutesOfDay, 4, day, 60));
+        assertEquals(3, DayIndex.upperBound(epochDays, minutesOfDay, 4, day, 120));
+        assertEquals(4, DayIndex.upperBound(epochDays, minutesOfDay, 4, day + 1, 0));
+        assertEquals(3, DayIndex.upperBound(epochDays, minutesOfDay, 3, day + 1, 0));
+    }
+
+    @Test
+    public void buildIndexesTheFirstObjectOfEveryDay() {
+        Random random = new Random(5);
+        int firstDay = EpochDay.of(2019, Calendar.JANUARY, 1);
+        for (int round = 0 ; round < 100 ; round++) {
+            int size = random.nextInt(100);
+            int[] epochDays = new int[size + 10];
+            for (int i = 0 ; i < size ; i++)
+                epochDays[i] = firstDay + random.nextInt(31);
+            Arrays.sort(epochDays, 0, size);
+
+            int[] dayIndex = new int[DayIndex.LENGTH];
+            DayIndex.build(epochDays, size, firstDay, dayIndex);
+
+            for (int d = 1 ; d <= 31 ; d++) {
+                int count = 0;
+                for (int i = 0 ; i < size ; i++)
+                    if (epochDays[i] == firstDay + d - 1)
+                        count++;
+                assertEquals(count, dayIndex[d + 1] - dayIndex[d]);
+                for (int i = dayIndex[d] ; i < dayIndex[d + 1] ; i++)
+                    assertEquals(firstDay + d - 1, epochDays[i]);
+            }
+            assertEquals(size, dayIndex[DayIndex.LENGTH - 1]);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EpochDayTest {
+
+    @Test
+    public void matchesGregorianCalendarFrom1900To2200() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(1900, Calendar.JANUARY, 1);
+
+        int expectedEpochDay = (int) (calendar.getTimeInMillis() / (24 * 60 * 60 * 1000L));
+        while (calendar.get(Calendar.YEAR) <= 2200) {
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH);
+            int day = calendar.get(Calendar.DAY_OF_MONTH);
+            String date = year + "-" + (month + 1) + "-" + day;
+
+            int epochDay = EpochDay.of(year, month, day);
+            assertEquals(date, expectedEpochDay, epochDay);
+            assertEquals(date, year, EpochDay.year(epochDay));
+            assertEquals(date, month, EpochDay.month(epochDay));
+            assertEquals(date, day, EpochDay.dayOfMonth(epochDay));
+            assertEquals(date, calendar.get(Calendar.DAY_OF_WEEK), EpochDay.dayOfWeek(epochDay));
+            assertEquals(date, calendar.getActualMaximum(Calendar.DAY_OF_MONTH), EpochDay.lengthOfMonth(year, month));
+            assertEquals(date, calendar.isLeapYear(year), EpochDay.isLeapYear(year));
+            assertEquals(date, new YMDCalendar(day, month, year), EpochDay.toYMDCalendar(epochDay));
+
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            expectedEpochDay++;
+        }
+    }
+
+    @Test
+    public void firstDayOfGridIsTheStartingWeekDayOnOrBeforeTheFirstOfTheMonth() {
+        for (int year = 1900 ; year <= 2200 ; year++) {
+            for (int month = 0 ; month < 12 ; month++) {
+                int firstDayOfMonth = EpochDay.of(year, month, 1);
+                for (int startingWeekDay = Calendar.SUNDAY ; startingWeekDay <= Calendar.SATURDAY ; startingWeekDay++) {
+                    int firstDayOfGrid = EpochDay.firstDayOfGrid(year, month, startingWeekDay);
+                    assertEquals(startingWeekDay, EpochDay.dayOfWeek(firstDayOfGrid));
+                    assertTrue(firstDayOfGrid <= firstDayOfMonth && firstDayOfMonth - firstDayOfGrid < 7);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void monthIndexRoundTrips() {
+        for (int year = -10 ; year <= 2200 ; year++) {
+            for (int month = 0 ; month < 12 ; month++) {
+                int monthIndex = EpochDay.monthIndex(year, month);
+                assertEquals(year, EpochDay.yearOfMonthIndex(monthIndex));
+                assertEquals(month, EpochDay.monthOfMonthIndex(monthIndex));
+                assertEquals(monthIndex + 1, EpochDay.monthIndex(month == 11 ? year + 1 : year, (month + 1) % 12));
+            }
+        }
+    }
+}
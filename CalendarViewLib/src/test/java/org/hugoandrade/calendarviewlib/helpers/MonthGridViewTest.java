@@ -0,0 +1,98 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MonthGridViewTest {
+
+    private static final int CELL_WIDTH = 100;
+    private static final int CELL_HEIGHT = 80;
+
+    private MonthGridView mMonthGridView;
+    private final List<Integer> mClickedCells = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mMonthGridView = new MonthGridView(activity);
+        mMonthGridView.measure(
+                View.MeasureSpec.makeMeasureSpec(CELL_WIDTH * MonthGridView.NUMBER_OF_COLUMNS, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(CELL_HEIGHT * MonthGridView.NUMBER_OF_ROWS, View.MeasureSpec.EXACTLY));
+        mMonthGridView.layout(0, 0,
+                CELL_WIDTH * MonthGridView.NUMBER_OF_COLUMNS,
+                CELL_HEIGHT * MonthGridView.NUMBER_OF_ROWS);
+        mMonthGridView.setOnCellClickListener(new MonthGridView.OnCellClickListener() {
+            @Override
+            public void onCellClick(MonthGridView view, int position) {
+                mClickedCells.add(position);
+            }
+        });
+    }
+
+    @Test
+    public void tapResolvesTheCellUnderIt() {
+        for (int position = 0 ; position < MonthGridView.NUMBER_OF_CELLS ; position++) {
+            float x = (position % MonthGridView.NUMBER_OF_COLUMNS + 0.5f) * CELL_WIDTH;
+            float y = (position / MonthGridView.NUMBER_OF_COLUMNS + 0.5f) * CELL_HEIGHT;
+            touch(MotionEvent.ACTION_DOWN, x, y);
+            touch(MotionEvent.ACTION_UP, x, y);
+
+            assertEquals(position, (int) mClickedCells.get(mClickedCells.size() - 1));
+        }
+        assertEquals(MonthGridView.NUMBER_OF_CELLS, mClickedCells.size());
+    }
+
+    @Test
+    public void tapIsCancelledWhenReleasedOnAnotherCell() {
+        touch(MotionEvent.ACTION_DOWN, CELL_WIDTH / 2, CELL_HEIGHT / 2);
+        touch(MotionEvent.ACTION_UP, CELL_WIDTH * 3 / 2, CELL_HEIGHT / 2);
+
+        touch(MotionEvent.ACTION_DOWN, CELL_WIDTH / 2, CELL_HEIGHT / 2);
+        touch(MotionEvent.ACTION_CANCEL, CELL_WIDTH / 2, CELL_HEIGHT / 2);
+        touch(MotionEvent.ACTION_UP, CELL_WIDTH / 2, CELL_HEIGHT / 2);
+
+        assertTrue(mClickedCells.isEmpty());
+    }
+
+    @Test
+    public void drawsEveryKindOfCell() {
+        mMonthGridView.setCell(0, "1", Color.BLACK, Typeface.NORMAL, Color.WHITE, Color.TRANSPARENT, Color.TRANSPARENT, false, 1f);
+        mMonthGridView.setCell(1, "2", Color.BLACK, Typeface.BOLD, Color.WHITE, Color.RED, Color.TRANSPARENT, false, 1f);
+        mMonthGridView.setCell(2, "3", Color.WHITE, Typeface.BOLD, Color.WHITE, Color.TRANSPARENT, Color.BLUE, true, 1f);
+        mMonthGridView.setCell(3, "31", Color.BLACK, Typeface.NORMAL, Color.WHITE, Color.TRANSPARENT, Color.TRANSPARENT, false, 0.25f);
+        for (int n = 0 ; n < mMonthGridView.getNumberOfNotes() ; n++)
+            mMonthGridView.setNote(0, n, Color.RED, Color.GREEN);
+        // Ignored, past the number of notes
+        mMonthGridView.setNote(0, mMonthGridView.getNumberOfNotes(), Color.RED, Color.GREEN);
+        mMonthGridView.clearNotes(1);
+
+        Bitmap bitmap = Bitmap.createBitmap(mMonthGridView.getWidth(), mMonthGridView.getHeight(), Bitmap.Config.ARGB_8888);
+        mMonthGridView.draw(new Canvas(bitmap));
+    }
+
+    private void touch(int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+        mMonthGridView.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
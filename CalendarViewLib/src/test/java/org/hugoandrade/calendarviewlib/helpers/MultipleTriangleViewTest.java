@@ -0,0 +1,139 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The paths of the triangles only depend on the geometry, so recoloring does not
+ * rebuild them and views of the same size share them. The draw time threshold can
+ * be set with a Gradle property, eg. -PrenderStats.maxTriangleDrawMicrosPerPage=500
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MultipleTriangleViewTest {
+
+    private static final int NUMBER_OF_DAYS = MonthGridView.NUMBER_OF_CELLS;
+    private static final int DRAWS = 200;
+
+    private Activity mActivity;
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void recoloringKeepsThePaths() {
+        MultipleTriangleView view = createView(100, 80);
+        view.setColor(Color.RED);
+        List<Path> paths = draw(view);
+
+        view.setColor(Color.BLUE);
+        view.setTriangleBackgroundColor(0, Color.GREEN);
+        List<Path> recoloredPaths = draw(view);
+
+        assertTrue(recoloredPaths.containsAll(paths));
+    }
+
+    @Test
+    public void viewsOfTheSameSizeShareThePaths() {
+        MultipleTriangleView view = createView(100, 80);
+        MultipleTriangleView otherView = createView(100, 80);
+        view.setColor(Color.RED);
+        otherView.setColor(Color.RED);
+
+        assertEquals(draw(view), draw(otherView));
+    }
+
+    @Test
+    public void resizingRebuildsThePaths() {
+        MultipleTriangleView view = createView(100, 80);
+        view.setColor(Color.RED);
+        Path path = draw(view).get(0);
+
+        view.layout(0, 0, 50, 40);
+        assertNotSame(path, draw(view).get(0));
+
+        view.setDirection(MultipleTriangleView.Direction.BOTTOM_RIGHT);
+        view.layout(0, 0, 100, 80);
+        assertNotSame(path, draw(view).get(0));
+    }
+
+    @Test
+    public void onlyVisibleTrianglesAreDrawn() {
+        MultipleTriangleView view = createView(100, 80);
+        assertEquals(0, draw(view).size());
+
+        view.setColor(0, Color.RED);
+        view.setTriangleBackgroundColor(1, Color.GREEN);
+        assertEquals(2, draw(view).size());
+    }
+
+    @Test
+    public void drawPageOfCells() {
+        List<MultipleTriangleView> views = new ArrayList<>();
+        for (int i = 0 ; i < NUMBER_OF_DAYS ; i++) {
+            MultipleTriangleView view = createView(100, 80);
+            for (int n = 0 ; n < i % view.getNumberOfItems() ; n++) {
+                view.setColor(n, Color.RED);
+                view.setTriangleBackgroundColor(n, Color.GREEN);
+            }
+            views.add(view);
+        }
+
+        long start = System.nanoTime();
+        for (int d = 0 ; d < DRAWS ; d++)
+            for (MultipleTriangleView view : views)
+                view.onDraw(mCanvas);
+        long micros = (System.nanoTime() - start) / 1000 / DRAWS;
+
+        assertTrue(micros + " us per page", micros <= getThreshold("maxTriangleDrawMicrosPerPage", 5000));
+    }
+
+    private MultipleTriangleView createView(int width, int height) {
+        MultipleTriangleView view = new MultipleTriangleView(mActivity, Robolectric.buildAttributeSet()
+                .addAttribute(org.hugoandrade.calendarviewlib.R.attr.mtr_number_of_items, "4")
+                .build());
+        view.layout(0, 0, width, height);
+        return view;
+    }
+
+    private List<Path> draw(MultipleTriangleView view) {
+        mCanvas.paths.clear();
+        view.onDraw(mCanvas);
+        return new ArrayList<>(mCanvas.paths);
+    }
+
+    private static long getThreshold(String name, long defaultValue) {
+        String value = System.getProperty("renderStats." + name);
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+
+    private static class RecordingCanvas extends Canvas {
+
+        final List<Path> paths = new ArrayList<>();
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+            paths.add(path);
+        }
+    }
+}
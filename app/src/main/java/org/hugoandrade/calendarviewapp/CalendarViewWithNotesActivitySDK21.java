@@ -178,8 +178,7 @@ public class CalendarViewWithNotesActivitySDK21 extends AppCompatActivity {
                             mEventList.remove(oldEvent);
                             mEventList.add(event);
 
-                            mCalendarView.removeCalendarObjectByID(parseCalendarObject(oldEvent));
-                            mCalendarView.addCalendarObject(parseCalendarObject(event));
+                            mCalendarView.updateCalendarObject(parseCalendarObject(event));
                             mCalendarDialog.setEventList(mEventList);
                         }
                         break;
@@ -0,0 +1,100 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a list of CalendarObjects (each with its Calendar) into the store
+ * of the calendar, as setCalendarObjectList does: a diff with what is in the
+ * store, applied object by object or by a single sort. Loaded into an empty
+ * store, into a store with the same objects created again (as when an app reads
+ * them again from its database), and into a store with other objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CalendarObjectLoadBenchmark {
+
+    private static final int YEARS = 3;
+
+    @Param({"10000", "100000", "1000000"})
+    public int events;
+
+    private List<CalendarObject> mObjects;
+    private List<CalendarObject> mSameObjects;
+    private List<CalendarObject> mOtherObjects;
+
+    @Setup
+    public void setUp() {
+        mObjects = create(new Random(1), "object ");
+        mSameObjects = create(new Random(1), "object ");
+        mOtherObjects = create(new Random(2), "other ");
+    }
+
+    private List<CalendarObject> create(Random random, String idPrefix) {
+        int firstDay = EpochDay.of(2019, Calendar.JANUARY, 1);
+        List<CalendarObject> calendarObjectList = new ArrayList<>(events);
+        for (int i = 0 ; i < events ; i++) {
+            int epochDay = firstDay + random.nextInt(YEARS * 365);
+            Calendar datetime = Calendar.getInstance();
+            datetime.clear();
+            datetime.set(EpochDay.year(epochDay),
+                    EpochDay.month(epochDay),
+                    EpochDay.dayOfMonth(epochDay),
+                    random.nextInt(24),
+                    random.nextInt(60));
+            calendarObjectList.add(new CalendarObject(idPrefix + i, datetime, random.nextInt(), random.nextInt()));
+        }
+        return calendarObjectList;
+    }
+
+    /**
+     * Store with the objects, filled again before each invocation
+     */
+    @State(Scope.Thread)
+    public static class LoadedStore {
+
+        CalendarObjectStore store;
+
+        @Setup(Level.Invocation)
+        public void setUp(CalendarObjectLoadBenchmark benchmark) {
+            store = new CalendarObjectStore();
+            store.setAll(benchmark.mObjects);
+        }
+    }
+
+    @Benchmark
+    public int load() {
+        return load(new CalendarObjectStore(), mObjects);
+    }
+
+    @Benchmark
+    public int reloadSame(LoadedStore loadedStore) {
+        return load(loadedStore.store, mSameObjects);
+    }
+
+    @Benchmark
+    public int reloadOther(LoadedStore loadedStore) {
+        return load(loadedStore.store, mOtherObjects);
+    }
+
+    private static int load(CalendarObjectStore store, List<CalendarObject> calendarObjectList) {
+        store.apply(store.diff(calendarObjectList), calendarObjectList);
+        return store.size();
+    }
+}
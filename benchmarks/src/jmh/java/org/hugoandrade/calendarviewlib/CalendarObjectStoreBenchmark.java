@@ -0,0 +1,178 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.CalendarView.CalendarObject;
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The store of a calendar with objects spread over three years: filled from a
+ * list, merged with and removed from, diffed with a list where a few objects
+ * changed, and read one day at a time (as binding a page does). The store and
+ * its types are package-private, so the benchmarks return sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalendarObjectStoreBenchmark {
+
+    private static final int YEARS = 3;
+
+    /**
+     * Objects added, removed or changed by the small updates, in 1000
+     */
+    private static final int UPDATED_PER_MILLE = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int events;
+
+    private List<CalendarObject> mObjects;
+
+    /**
+     * The objects split in two, to be merged
+     */
+    private List<CalendarObject> mFirstHalf;
+    private List<CalendarObject> mSecondHalf;
+
+    /**
+     * Objects not in the store, IDs of objects in it, and the objects with a
+     * few of them moved to other days or recolored
+     */
+    private List<CalendarObject> mAdded;
+    private List<String> mRemovedIDs;
+    private List<CalendarObject> mChanged;
+
+    private CalendarObjectStore mStore;
+
+    private int mFirstDay;
+    private int mDay;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        mFirstDay = EpochDay.of(2019, Calendar.JANUARY, 1);
+
+        mObjects = new ArrayList<>(events);
+        mFirstHalf = new ArrayList<>(events / 2);
+        mSecondHalf = new ArrayList<>(events / 2);
+        for (int i = 0 ; i < events ; i++) {
+            CalendarObject object = create(random, "object " + i);
+            mObjects.add(object);
+            (i % 2 == 0 ? mFirstHalf : mSecondHalf).add(object);
+        }
+
+        int updated = Math.max(1, events / 1000 * UPDATED_PER_MILLE);
+        mAdded = new ArrayList<>(updated);
+        mRemovedIDs = new ArrayList<>(updated);
+        for (int i = 0 ; i < updated ; i++) {
+            mAdded.add(create(random, "added " + i));
+            mRemovedIDs.add(mObjects.get(random.nextInt(events)).getID());
+        }
+
+        mChanged = new ArrayList<>(mObjects);
+        for (int i = 0 ; i < updated ; i++) {
+            int index = random.nextInt(events);
+            CalendarObject object = mChanged.get(index);
+            mChanged.set(index, i % 2 == 0
+                    ? create(random, object.getID())
+                    : new CalendarObject(object.getID(), object.getDatetime(), random.nextInt(), 0));
+        }
+
+        mStore = new CalendarObjectStore();
+        mStore.setAll(mObjects);
+    }
+
+    private CalendarObject create(Random random, String id) {
+        int epochDay = mFirstDay + random.nextInt(YEARS * 365);
+        Calendar datetime = Calendar.getInstance();
+        datetime.clear();
+        datetime.set(EpochDay.year(epochDay),
+                EpochDay.month(epochDay),
+                EpochDay.dayOfMonth(epochDay),
+                random.nextInt(24),
+                random.nextInt(60));
+        return new CalendarObject(id, datetime, random.nextInt(), random.nextInt());
+    }
+
+    /**
+     * Stores filled again before each invocation of the benchmarks that change them
+     */
+    @State(Scope.Thread)
+    public static class Stores {
+
+        CalendarObjectStore full;
+        CalendarObjectStore half;
+
+        @Setup(Level.Invocation)
+        public void setUp(CalendarObjectStoreBenchmark benchmark) {
+            full = new CalendarObjectStore();
+            full.setAll(benchmark.mObjects);
+            half = new CalendarObjectStore();
+            half.setAll(benchmark.mFirstHalf);
+        }
+    }
+
+    @Benchmark
+    public int setAll() {
+        CalendarObjectStore store = new CalendarObjectStore();
+        store.setAll(mObjects);
+        return store.size();
+    }
+
+    /**
+     * Merge half of the objects into a store with the other half
+     */
+    @Benchmark
+    public int addAllMerge(Stores stores) {
+        stores.half.addAll(mSecondHalf);
+        return stores.half.size();
+    }
+
+    /**
+     * Add a few objects to the full store, one by one
+     */
+    @Benchmark
+    public int add(Stores stores) {
+        for (CalendarObject object : mAdded)
+            stores.full.add(object);
+        return stores.full.size();
+    }
+
+    @Benchmark
+    public List<CalendarObject> removeAll(Stores stores) {
+        return stores.full.removeAll(mRemovedIDs);
+    }
+
+    @Benchmark
+    public int diff() {
+        return mStore.diff(mChanged).size();
+    }
+
+    @Benchmark
+    public int diffAndApply(Stores stores) {
+        stores.full.apply(stores.full.diff(mChanged), mChanged);
+        return stores.full.size();
+    }
+
+    /**
+     * Read the objects of the next day of the three years
+     */
+    @Benchmark
+    public List<CalendarObject> getDay() {
+        mDay = (mDay + 1) % (YEARS * 365);
+        return mStore.getDay(EpochDay.toYMDCalendar(mFirstDay + mDay));
+    }
+}
@@ -0,0 +1,163 @@
+package org.hugoandrade.calendarviewlib;
+
+import org.hugoandrade.calendarviewlib.helpers.EpochDay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Occurrences of a recurring object over ten years, expanded for one 42-day month
+ * grid at a time (as binding a page does) or materialized up front into a list
+ * (as setCalendarObjectList would need them).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecurrenceRuleBenchmark {
+
+    private static final int YEARS = 10;
+    private static final int GRID_DAYS = 42;
+
+    @Param({"daily", "weekly", "monthly", "monthlyNthWeekDay"})
+    public String rule;
+
+    private RecurrenceRule mRule;
+
+    /**
+     * First and last day of the ten years
+     */
+    private int mFirstDay;
+    private int mLastDay;
+
+    /**
+     * First day of the grid of each month of the ten years
+     */
+    private final int[] mGrids = new int[YEARS * 12];
+    private int mGrid;
+
+    /**
+     * Occurrences of the ten years, materialized up front
+     */
+    private int[] mMaterialized;
+    private int mMaterializedSize;
+
+    private final int[] mOccurrences = new int[GRID_DAYS];
+
+    @Setup
+    public void setUp() {
+        Calendar start = Calendar.getInstance();
+        start.clear();
+        start.set(2019, Calendar.JANUARY, 7, 9, 30);
+
+        switch (rule) {
+            case "daily":
+                mRule = new RecurrenceRule.Builder(start, RecurrenceRule.DAILY).setInterval(2).create();
+                break;
+            case "weekly":
+                mRule = new RecurrenceRule.Builder(start, RecurrenceRule.WEEKLY)
+                        .setInterval(2)
+                        .setWeekDays(Calendar.MONDAY, Calendar.WEDNESDAY, Calendar.FRIDAY)
+                        .create();
+                break;
+            case "monthly":
+                mRule = new RecurrenceRule.Builder(start, RecurrenceRule.MONTHLY).create();
+                break;
+            default:
+                mRule = new RecurrenceRule.Builder(start, RecurrenceRule.MONTHLY)
+                        .setNthWeekDay(RecurrenceRule.LAST, Calendar.FRIDAY)
+                        .create();
+        }
+
+        mFirstDay = EpochDay.of(2019, Calendar.JANUARY, 1);
+        mLastDay = EpochDay.of(2019 + YEARS, Calendar.JANUARY, 1) - 1;
+        for (int m = 0 ; m < mGrids.length ; m++)
+            mGrids[m] = EpochDay.firstDayOfGrid(2019 + m / 12, m % 12, Calendar.MONDAY);
+
+        mMaterialized = materializeDays();
+        mMaterializedSize = mMaterialized.length;
+    }
+
+    private int nextGrid() {
+        mGrid = (mGrid + 1) % mGrids.length;
+        return mGrids[mGrid];
+    }
+
+    /**
+     * Expand the grid of the next month of the ten years
+     */
+    @Benchmark
+    public int expandGrid() {
+        int firstDay = nextGrid();
+        return mRule.getOccurrences(firstDay, firstDay + GRID_DAYS - 1, mOccurrences);
+    }
+
+    /**
+     * Read the grid of the next month of the ten years from the materialized occurrences
+     */
+    @Benchmark
+    public int materializedGrid() {
+        int firstDay = nextGrid();
+        int from = lowerBound(mMaterialized, mMaterializedSize, firstDay);
+        int to = lowerBound(mMaterialized, mMaterializedSize, firstDay + GRID_DAYS);
+        System.arraycopy(mMaterialized, from, mOccurrences, 0, to - from);
+        return to - from;
+    }
+
+    /**
+     * Materialize the ten years as epoch days, the cheapest possible list
+     */
+    @Benchmark
+    public int[] materializeDays() {
+        int[] occurrences = new int[mLastDay - mFirstDay + 1];
+        int size = mRule.getOccurrences(mFirstDay, mLastDay, occurrences);
+        int[] materialized = new int[size];
+        System.arraycopy(occurrences, 0, materialized, 0, size);
+        return materialized;
+    }
+
+    /**
+     * Materialize the ten years as one Calendar per occurrence, as a list of
+     * CalendarObjects holds them
+     */
+    @Benchmark
+    public List<Calendar> materializeCalendars() {
+        List<Calendar> calendars = new ArrayList<>(mMaterializedSize);
+        for (int i = 0 ; i < mMaterializedSize ; i++) {
+            Calendar datetime = Calendar.getInstance();
+            datetime.clear();
+            datetime.set(EpochDay.year(mMaterialized[i]),
+                    EpochDay.month(mMaterialized[i]),
+                    EpochDay.dayOfMonth(mMaterialized[i]),
+                    mRule.getMinuteOfDay() / 60,
+                    mRule.getMinuteOfDay() % 60);
+            calendars.add(datetime);
+        }
+        return calendars;
+    }
+
+    /**
+     * @return the index of the first of the 'size' sorted days that is not before the given one
+     */
+    private static int lowerBound(int[] days, int size, int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,95 @@
+package org.hugoandrade.calendarviewlib.helpers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date arithmetic done for every cell bound and every object added: YMDCalendar
+ * construction and comparisons, date codes, epoch days and the 42 days of a
+ * month grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateBenchmark {
+
+    private static final int DATES = 1024;
+
+    private final int[] mEpochDays = new int[DATES];
+    private final YMDCalendar[] mDates = new YMDCalendar[DATES];
+    private final Calendar[] mCalendars = new Calendar[DATES];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        int firstDay = EpochDay.of(2000, Calendar.JANUARY, 1);
+        for (int i = 0 ; i < DATES ; i++) {
+            mEpochDays[i] = firstDay + random.nextInt(50 * 365);
+            mDates[i] = EpochDay.toYMDCalendar(mEpochDays[i]);
+            mCalendars[i] = YMDCalendar.toCalendar(mDates[i]);
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (DATES - 1);
+        return mIndex;
+    }
+
+    @Benchmark
+    public YMDCalendar ymdCalendarFromCalendar() {
+        return new YMDCalendar(mCalendars[next()]);
+    }
+
+    @Benchmark
+    public YMDCalendar ymdCalendarFromEpochDay() {
+        return EpochDay.toYMDCalendar(mEpochDays[next()]);
+    }
+
+    @Benchmark
+    public boolean ymdCalendarIsAfter() {
+        int i = next();
+        return mDates[i].isAfter(mDates[(i + 1) & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public boolean ymdCalendarEquals() {
+        int i = next();
+        return mDates[i].equals(mDates[(i + 1) & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public int dateCode() {
+        return YMDCalendar.getDateCode(mDates[next()], 1);
+    }
+
+    @Benchmark
+    public int epochDayOf() {
+        return EpochDay.of(mDates[next()]);
+    }
+
+    /**
+     * The days of a month grid and whether each is in the month, as binding a page does
+     */
+    @Benchmark
+    public void gridDays(Blackhole blackhole) {
+        YMDCalendar date = mDates[next()];
+        int month = EpochDay.monthIndex(date.year, date.month);
+        int firstDay = EpochDay.firstDayOfGrid(date.year, date.month, Calendar.MONDAY);
+        for (int i = 0 ; i < 42 ; i++) {
+            int day = firstDay + i;
+            blackhole.consume(day);
+            blackhole.consume(EpochDay.monthIndex(EpochDay.year(day), EpochDay.month(day)) != month);
+        }
+    }
+}